@@ -0,0 +1,81 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks de la generacion de laberintos: cada algoritmo sobre los
+ * cuartos, la generacion por bloques y {@link GenerarMaze#generarMze}
+ * completo hasta el archivo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BenchmarkGeneracion {
+
+    /**Lado del laberinto en cuartos*/
+    @Param({"100", "1000"})
+    public int lado;
+    /**Semilla del laberinto*/
+    @Param({"1", "2"})
+    public int semilla;
+    /**Algoritmo de generacion, como en '-a'*/
+    @Param({"CAMINO", "BACKTRACKER", "KRUSKAL"})
+    public String algoritmo;
+
+    private File salida;
+
+    @Setup
+    public void prepara() throws IOException {
+        salida = File.createTempFile("benchmark", ".mze");
+        BenchmarkResolucion.silenciaErrores();
+    }
+
+    @TearDown
+    public void limpia() {
+        salida.delete();
+    }
+
+    /**Genera el laberinto con el algoritmo y regresa sus bytes*/
+    @Benchmark
+    public byte[] genera() {
+        Maze maze = new Maze(lado, lado, new Random(semilla));
+        maze.iniciarMaze(FabricaGeneradores.generador(AlgoritmoMaze.valueOf(algoritmo)));
+        return maze.getMazeByte();
+    }
+
+    /**Genera el laberinto por bloques con un hilo*/
+    @Benchmark
+    public byte[] generaPorBloques() {
+        return new GeneradorPorBloques(lado, lado, semilla, 1).genera();
+    }
+
+    /**Genera el laberinto y lo escribe a un archivo, como '-g'*/
+    @Benchmark
+    public long generarMze() {
+        GenerarMaze generador = new GenerarMaze();
+        generador.getValues(new String[] {
+            "-g", "-w", String.valueOf(lado), "-h", String.valueOf(lado),
+            "-s", String.valueOf(semilla), "-a", algoritmo, "-o", salida.getPath()
+        });
+        generador.generarMze();
+        return salida.length();
+    }
+}
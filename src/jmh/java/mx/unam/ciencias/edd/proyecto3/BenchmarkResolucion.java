@@ -0,0 +1,177 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+import mx.unam.ciencias.edd.Grafica;
+import mx.unam.ciencias.edd.Lista;
+import mx.unam.ciencias.edd.VerticeGrafica;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks de cada etapa de la resolucion por separado (lectura del mze,
+ * construccion de la grafica, busqueda y dibujo) y de la resolucion
+ * completa. El laberinto es un backtracker generado una vez por combinacion
+ * de parametros. Con '-prof gc' JMH reporta tambien la memoria asignada por
+ * operacion.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BenchmarkResolucion {
+
+    /**Lado del laberinto en cuartos*/
+    @Param({"100", "500", "1000"})
+    public int lado;
+    /**Semilla del laberinto*/
+    @Param({"1", "2"})
+    public int semilla;
+
+    /* Los cuartos y el archivo mze completo. */
+    private byte[] cuartos, mze;
+    private Maze maze;
+    private int[] trayectoria;
+    /* La grafica de cuartos por indice, y su entrada y salida. */
+    private Grafica<Integer> grafica;
+    private int entrada, salida;
+    private Descarta descarta = new Descarta();
+
+    /* Flujo que sólo cuenta los bytes que recibe. */
+    private static class Descarta extends OutputStream {
+
+        private long escritos;
+
+        @Override public void write(int b) {
+            escritos++;
+        }
+
+        @Override public void write(byte[] b, int inicio, int n) {
+            escritos += n;
+        }
+    }
+
+    /**
+    * Descarta los mensajes de la salida de errores, para que no se mezclen
+    * con los resultados
+    */
+    static void silenciaErrores() {
+        System.setErr(new PrintStream(new Descarta()));
+    }
+
+    @Setup
+    public void prepara() {
+        silenciaErrores();
+        Maze generado = new Maze(lado, lado, new Random(semilla));
+        generado.iniciarMaze(FabricaGeneradores.generador(AlgoritmoMaze.BACKTRACKER));
+        cuartos = generado.getMazeByte();
+        byte[] encabezado = new EncabezadoMze(lado, lado, EncabezadoMze.version(lado, lado), 0).getBytes();
+        mze = new byte[encabezado.length + cuartos.length];
+        System.arraycopy(encabezado, 0, mze, 0, encabezado.length);
+        System.arraycopy(cuartos, 0, mze, encabezado.length, cuartos.length);
+
+        maze = new Maze(cuartos, lado, lado);
+        GridSolver solver = new GridSolver(cuartos, lado, lado);
+        trayectoria = solver.resolver();
+        entrada = solver.getF1() * lado + solver.getS1();
+        salida = solver.getF2() * lado + solver.getS2();
+
+        // mismos pesos que Maze.crearAristas: 1+2*score del cuarto de menor indice
+        grafica = new Grafica<>();
+        for (int c = 0; c < cuartos.length; c++)
+            grafica.agrega(c);
+        for (int c = 0; c < cuartos.length; c++) {
+            int peso = 1 + 2 * ((cuartos[c] & 0xF0) >> 4);
+            if ((cuartos[c] & Maze.ESTE) == 0 && c % lado + 1 < lado)
+                grafica.conecta(c, c + 1, peso);
+            if ((cuartos[c] & Maze.SUR) == 0 && c + lado < cuartos.length)
+                grafica.conecta(c, c + lado, peso);
+        }
+    }
+
+    /**Lee el archivo mze desde memoria, como la entrada estandar*/
+    @Benchmark
+    public ResolverMaze leerMze() throws InvalidMazeException {
+        ResolverMaze resolvedor = new ResolverMaze();
+        resolvedor.leerMze(new BufferedInputStream(new ByteArrayInputStream(mze), 1 << 16));
+        return resolvedor;
+    }
+
+    /**Construye los cuartos y la grafica de cuartos*/
+    @Benchmark
+    public Maze mazeTografica() {
+        Maze m = new Maze(cuartos, lado, lado);
+        m.mazeTografica();
+        return m;
+    }
+
+    /**Dijkstra sobre la grafica de cuartos ya construida*/
+    @Benchmark
+    public Lista<VerticeGrafica<Integer>> dijkstraGrafica() {
+        return grafica.dijkstra(entrada, salida);
+    }
+
+    /**Dijkstra directamente sobre los bytes del laberinto*/
+    @Benchmark
+    public int[] dijkstraRejilla() {
+        return new GridSolver(cuartos, lado, lado).resolver();
+    }
+
+    /**Construye la grafica compacta de cuartos y busca con dijkstra*/
+    @Benchmark
+    public int[] dijkstraCompacta() {
+        return maze.mazeCompacta();
+    }
+
+    /**Dibuja la solucion en SVG*/
+    @Benchmark
+    public long graficarSolucion() throws IOException {
+        maze.graficarSolucion(trayectoria, descarta);
+        return descarta.escritos;
+    }
+
+    /**Dibuja la solucion en PNG*/
+    @Benchmark
+    public long graficarPng() throws IOException {
+        new GraficadorPng(ByteBuffer.wrap(cuartos), lado, lado, GraficadorPng.TAMAÑO_DEFAULT)
+            .graficar(trayectoria, descarta);
+        return descarta.escritos;
+    }
+
+    /**Lee y resuelve en modo rejilla y escribe el SVG, como por omision*/
+    @Benchmark
+    public long completoRejilla() throws InvalidMazeException, IOException {
+        return completo();
+    }
+
+    /**Lee y resuelve con la grafica de cuartos y escribe el SVG*/
+    @Benchmark
+    public long completoGrafica() throws InvalidMazeException, IOException {
+        return completo("-m", "grafica");
+    }
+
+    private long completo(String... banderas) throws InvalidMazeException, IOException {
+        ResolverMaze resolvedor = new ResolverMaze();
+        resolvedor.getValues(banderas);
+        resolvedor.leerMze(new BufferedInputStream(new ByteArrayInputStream(mze), 1 << 16));
+        resolvedor.resolverMaze(descarta);
+        return descarta.escritos;
+    }
+}
@@ -0,0 +1,96 @@
+package mx.unam.ciencias.edd;
+
+/**
+ * Clase para conjuntos disjuntos (<i>union-find</i>) sobre los enteros
+ * 0, ..., <i>n</i>-1. Une por tamaño y comprime trayectorias a la mitad, así
+ * que cada operación toma tiempo amortizado casi constante.
+ */
+public class ConjuntosDisjuntos {
+
+    /* El padre de cada elemento; las raíces son su propio padre. */
+    private int[] padre;
+    /* El tamaño del conjunto de cada raíz. */
+    private int[] tamano;
+    /* El número de conjuntos. */
+    private int conjuntos;
+
+    /**
+     * Crea <i>n</i> conjuntos, cada uno con un solo elemento.
+     * @param n el número de elementos.
+     */
+    public ConjuntosDisjuntos(int n) {
+        padre = new int[n];
+        tamano = new int[n];
+        for (int i = 0; i < n; i++) {
+            padre[i] = i;
+            tamano[i] = 1;
+        }
+        conjuntos = n;
+    }
+
+    /**
+     * Regresa el representante del conjunto que contiene al elemento.
+     * @param elemento el elemento.
+     * @return el representante de su conjunto.
+     */
+    public int busca(int elemento) {
+        while (padre[elemento] != elemento) {
+            padre[elemento] = padre[padre[elemento]];
+            elemento = padre[elemento];
+        }
+        return elemento;
+    }
+
+    /**
+     * Une los conjuntos que contienen a los elementos recibidos.
+     * @param a el primer elemento.
+     * @param b el segundo elemento.
+     * @return <code>true</code> si estaban en conjuntos distintos,
+     *         <code>false</code> en otro caso.
+     */
+    public boolean une(int a, int b) {
+        a = busca(a);
+        b = busca(b);
+        if (a == b)
+            return false;
+        if (tamano[a] < tamano[b]) {
+            int t = a;
+            a = b;
+            b = t;
+        }
+        padre[b] = a;
+        tamano[a] += tamano[b];
+        conjuntos--;
+        return true;
+    }
+
+    /**
+     * Nos dice si los elementos están en el mismo conjunto.
+     * @param a el primer elemento.
+     * @param b el segundo elemento.
+     * @return <code>true</code> si están en el mismo conjunto,
+     *         <code>false</code> en otro caso.
+     */
+    public boolean mismoConjunto(int a, int b) {
+        return busca(a) == busca(b);
+    }
+
+    /**
+     * Regresa el número de conjuntos.
+     * @return el número de conjuntos.
+     */
+    public int getConjuntos() {
+        return conjuntos;
+    }
+
+    /**
+     * Regresa cada elemento a su propio conjunto.
+     */
+    public void limpia() {
+        for (int i = 0; i < padre.length; i++) {
+            padre[i] = i;
+            tamano[i] = 1;
+        }
+        conjuntos = padre.length;
+    }
+}
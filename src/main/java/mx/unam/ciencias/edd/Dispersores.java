@@ -132,4 +132,21 @@ public class Dispersores {
 
         return h;
     }
+
+    /**
+     * Función de dispersión para enteros. Mezcla los bits de la llave para
+     * que llaves consecutivas no terminen en cubetas consecutivas.
+     * 
+     * @param llave la llave a dispersar.
+     * @return la dispersión de la llave.
+     */
+    public static int dispersaEntero(int llave) {
+        int h = llave;
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
 }
\ No newline at end of file
@@ -27,4 +27,15 @@ public class FabricaDispersores {
         default: throw new IllegalArgumentException("Algoritmo inválido");
         }
     }
+
+    /**
+     * Regresa una instancia de {@link Dispersor} para objetos cualesquiera,
+     * que mezcla el resultado de {@link Object#hashCode} con {@link
+     * Dispersores#dispersaEntero}.
+     * @param <T> el tipo de los objetos a dispersar.
+     * @return una instancia de {@link Dispersor} para objetos.
+     */
+    public static <T> Dispersor<T> dispersorObjeto() {
+        return o -> Dispersores.dispersaEntero(o.hashCode());
+    }
 }
@@ -43,10 +43,21 @@ public class Grafica<T> implements Coleccion<T> {
         private Color color;
         /* La distancia del vértice. */
         private double distancia;
+        /* La distancia estimada del vértice al destino en A*; 0 en dijkstra. */
+        private double estimacion;
+        /* El vértice anterior en la trayectoria mínima desde el origen. */
+        private Vertice predecesor;
         /* El índice del vértice. */
         private int indice;
         /* La lista de vecinos del vértice. */
         private Lista<Vecino> vecinos;
+        /* La dispersión del elemento del vértice. */
+        private int dispersion;
+        /* El siguiente vértice en la misma cubeta del índice. */
+        private Vertice siguiente;
+        /* Las etiquetas del vértice en la búsqueda bidireccional, desde el
+         * origen y desde el destino. */
+        private Etiqueta ida, vuelta;
 
         /* Crea un nuevo vértice a partir de un elemento. */
         public Vertice(T elemento) {
@@ -89,9 +100,9 @@ public class Grafica<T> implements Coleccion<T> {
             return indice;
         }
 
-        /* Compara dos vértices por distancia. */
+        /* Compara dos vértices por distancia más distancia estimada. */
         @Override public int compareTo(Vertice vertice) {
-            return compare(distancia, vertice.distancia);
+            return compare(distancia + estimacion, vertice.distancia + vertice.estimacion);
         }
 
         private int compare(double a, double b){
@@ -141,24 +152,160 @@ public class Grafica<T> implements Coleccion<T> {
         }
     }
 
-    /* Interface para poder usar lambdas al buscar el elemento que sigue al
-     * reconstruir un camino. */
-    @FunctionalInterface
-    private interface BuscadorCamino<T> {
-        /* Regresa true si el vértice se sigue del vecino. */
-        public boolean seSiguen(Grafica<T>.Vertice v, Grafica<T>.Vecino a);
+    /* Clase interna privada para las etiquetas de la búsqueda bidireccional:
+     * la distancia de un vértice desde uno de los dos extremos. Un vértice
+     * puede estar en los dos montículos a la vez, así que cada dirección usa
+     * su propia etiqueta. */
+    private class Etiqueta implements ComparableIndexable<Etiqueta> {
+
+        /* El vértice etiquetado. */
+        private Vertice vertice;
+        /* La distancia del vértice al extremo de la búsqueda. */
+        private double distancia;
+        /* La etiqueta anterior en la trayectoria desde el extremo. */
+        private Etiqueta anterior;
+        /* El índice de la etiqueta en su montículo. */
+        private int indice;
+
+        /* Crea una etiqueta para el vértice con la distancia y la etiqueta
+         * anterior dadas. */
+        public Etiqueta(Vertice vertice, double distancia, Etiqueta anterior) {
+            this.vertice = vertice;
+            this.distancia = distancia;
+            this.anterior = anterior;
+        }
+
+        /* Define el índice de la etiqueta. */
+        @Override public void setIndice(int indice) {
+            this.indice = indice;
+        }
+
+        /* Regresa el índice de la etiqueta. */
+        @Override public int getIndice() {
+            return indice;
+        }
+
+        /* Compara dos etiquetas por distancia. */
+        @Override public int compareTo(Etiqueta etiqueta) {
+            return Double.compare(distancia, etiqueta.distancia);
+        }
     }
 
     /* Vértices. */
     private Lista<Vertice> vertices;
     /* Número de aristas. */
     private int aristas;
+    /* Índice de elementos a vértices; las cubetas se encadenan por el campo
+     * siguiente de cada vértice. */
+    private Vertice[] cubetas;
+    /* El dispersor para los elementos de la gráfica. */
+    private Dispersor<T> dispersor;
+
+    /* Capacidad inicial del índice; siempre es potencia de 2. */
+    private static final int CUBETAS_INICIALES = 64;
+    /* Peso máximo para el que dijkstra usa un montículo de cubetas. */
+    private static final int PESO_MAXIMO_CUBETAS = 1 << 16;
+    /* Número de vértices expandidos por la última búsqueda de peso mínimo. */
+    private int expandidos;
+    /* Número de veces que la última búsqueda de peso mínimo reordenó un
+     * vértice que ya estaba en el montículo. */
+    private int reordenamientos;
+    /* El resultado de pesoEnteroMaximo, o PESO_DESCONOCIDO si hay que
+     * calcularlo de nuevo. */
+    private int pesoEntero;
+    /* Marca de pesoEntero cuando la gráfica cambió desde el último cálculo. */
+    private static final int PESO_DESCONOCIDO = 0;
 
     /**
-     * Constructor único.
+     * Constructor que usa {@link FabricaDispersores#dispersorObjeto} para
+     * indexar los elementos de la gráfica.
      */
     public Grafica() {
+        this(FabricaDispersores.dispersorObjeto());
+    }
+
+    /**
+     * Constructor que recibe el dispersor con el que se indexan los elementos
+     * de la gráfica. El dispersor debe ser consistente con {@link
+     * Object#equals} de los elementos.
+     * @param dispersor el dispersor para los elementos.
+     */
+    public Grafica(Dispersor<T> dispersor) {
+        this.dispersor = dispersor;
         vertices = new Lista<>();
+        cubetas = nuevoArreglo(CUBETAS_INICIALES);
+    }
+
+    /* Truco para crear arreglos de vértices; de otra forma obtenemos
+       advertencias del compilador. */
+    @SuppressWarnings("unchecked") private Vertice[] nuevoArreglo(int n) {
+        return (Vertice[])(new Grafica.Vertice[n]);
+    }
+
+    /* Regresa el vértice del elemento recibido, o null si no está en la
+     * gráfica. Tiempo esperado O(1). */
+    private Vertice busca(T elemento) {
+        int d = dispersor.dispersa(elemento);
+        Vertice v = cubetas[d & (cubetas.length - 1)];
+        while (v != null) {
+            if (v.dispersion == d && v.elemento.equals(elemento))
+                return v;
+            v = v.siguiente;
+        }
+        return null;
+    }
+
+    /* Agrega el vértice al índice, creciéndolo si la carga pasa de 3/4. */
+    private void indexa(Vertice v) {
+        if (vertices.getElementos() * 4 > cubetas.length * 3)
+            creceIndice();
+        v.dispersion = dispersor.dispersa(v.elemento);
+        int i = v.dispersion & (cubetas.length - 1);
+        v.siguiente = cubetas[i];
+        cubetas[i] = v;
+    }
+
+    /* Saca el vértice del índice. */
+    private void desindexa(Vertice v) {
+        int i = v.dispersion & (cubetas.length - 1);
+        if (cubetas[i] == v) {
+            cubetas[i] = v.siguiente;
+        } else {
+            Vertice a = cubetas[i];
+            while (a.siguiente != v)
+                a = a.siguiente;
+            a.siguiente = v.siguiente;
+        }
+        v.siguiente = null;
+    }
+
+    /* Duplica el número de cubetas y redistribuye los vértices. */
+    private void creceIndice() {
+        Vertice[] nuevas = nuevoArreglo(cubetas.length * 2);
+        for (Vertice v : cubetas) {
+            while (v != null) {
+                Vertice s = v.siguiente;
+                int i = v.dispersion & (nuevas.length - 1);
+                v.siguiente = nuevas[i];
+                nuevas[i] = v;
+                v = s;
+            }
+        }
+        cubetas = nuevas;
+    }
+
+    /* Nos dice si los vértices son vecinos, recorriendo sólo la lista de
+     * vecinos más corta. */
+    private boolean sonVecinos(Vertice va, Vertice vb) {
+        if (vb.vecinos.getLongitud() < va.vecinos.getLongitud()) {
+            Vertice t = va;
+            va = vb;
+            vb = t;
+        }
+        for (Vecino v : va.vecinos)
+            if (v.vecino == vb)
+                return true;
+        return false;
     }
 
     /**
@@ -185,12 +332,14 @@ public class Grafica<T> implements Coleccion<T> {
      *         la gráfica.
      */
     @Override public void agrega(T elemento) {
-        if(contiene(elemento))
-            throw new IllegalArgumentException("El elemento ya esta contenido en la gráfica.");
         if(elemento==null)
             throw new IllegalArgumentException("No se puede agregar null a la gráfica.");
+        if(contiene(elemento))
+            throw new IllegalArgumentException("El elemento ya esta contenido en la gráfica.");
         Vertice v = new Vertice(elemento);
+        indexa(v);
         vertices.agrega(v);
+        pesoEntero = PESO_DESCONOCIDO;
     }
 
     /**
@@ -227,12 +376,13 @@ public class Grafica<T> implements Coleccion<T> {
         Vertice va = (Vertice)vertice(a);
         Vertice vb = (Vertice)vertice(b);
         
-        if(sonVecinos(a, b))
+        if(sonVecinos(va, vb))
             throw new IllegalArgumentException("No hay nada que conectar, ya estan conectados.");
 
         va.vecinos.agrega(new Vecino(vb, peso));
         vb.vecinos.agrega(new Vecino(va, peso));
         aristas++;
+        pesoEntero = PESO_DESCONOCIDO;
     }
 
     /**
@@ -247,7 +397,7 @@ public class Grafica<T> implements Coleccion<T> {
         Vertice vA = (Vertice)vertice(a);
         Vertice vB = (Vertice)vertice(b);
         
-        if(!sonVecinos(a, b))
+        if(!sonVecinos(vA, vB))
             throw new IllegalArgumentException("No están conectados.");
 
         for(Vecino vecino : vA.vecinos)
@@ -267,11 +417,7 @@ public class Grafica<T> implements Coleccion<T> {
      *         <code>false</code> en otro caso.
      */
     @Override public boolean contiene(T elemento) {
-        for(Vertice v: vertices)
-            if(v.elemento.equals(elemento))
-                return true;
-
-        return false;
+        return busca(elemento) != null;
     }
 
     /**
@@ -287,6 +433,7 @@ public class Grafica<T> implements Coleccion<T> {
         for(Vecino ve : vertice.vecinos)
             desconecta(ve.vecino.elemento, vertice.elemento);
         
+        desindexa(vertice);
         vertices.elimina(vertice);
     }
 
@@ -302,11 +449,7 @@ public class Grafica<T> implements Coleccion<T> {
         Vertice vA = (Vertice)vertice(a);
         Vertice vB = (Vertice)vertice(b);
 
-        for(Vecino v : vA.vecinos)
-            if(v.vecino.equals(vB))
-                return true;
-
-        return false;   
+        return sonVecinos(vA, vB);
     }
 
     /**
@@ -349,7 +492,7 @@ public class Grafica<T> implements Coleccion<T> {
             if(peso<=0)
                 throw new IllegalArgumentException("El peso es menor o igual a 0.");
 
-            if(!sonVecinos(a, b))
+            if(!sonVecinos(va, vb))
                 throw new IllegalArgumentException("Los vértices no son vecinos.");             
             
             for (Vecino vecino : va.vecinos)
@@ -362,6 +505,7 @@ public class Grafica<T> implements Coleccion<T> {
                 if (vecino.vecino.equals(va)) {
                     vecino.peso = peso;
                 }    
+            pesoEntero = PESO_DESCONOCIDO;
     }
 
     /**
@@ -371,10 +515,9 @@ public class Grafica<T> implements Coleccion<T> {
      * @return el vértice correspondiente el elemento recibido.
      */ 
     public VerticeGrafica<T> vertice(T elemento) {
-
-        for(Vertice v : vertices)
-            if(v.elemento.equals(elemento))
-                return v;
+        Vertice v = busca(elemento);
+        if(v != null)
+            return v;
         
         throw new NoSuchElementException("El elemento no se encuentra en la gráfica.");
     }
@@ -521,7 +664,9 @@ public class Grafica<T> implements Coleccion<T> {
     @Override
     public void limpia() {
         vertices.limpia();
+        cubetas = nuevoArreglo(CUBETAS_INICIALES);
         aristas = 0;
+        pesoEntero = PESO_DESCONOCIDO;
     }
 
     /**
@@ -628,6 +773,7 @@ public class Grafica<T> implements Coleccion<T> {
             v.distancia = Double.MAX_VALUE;
         
         s.distancia = 0;
+        s.predecesor = null;
 
         Cola<Vertice> q = new Cola<>();
         q.mete(s);
@@ -637,38 +783,30 @@ public class Grafica<T> implements Coleccion<T> {
             for(Vecino vecino : u.vecinos){
                     if(vecino.vecino.distancia == Double.MAX_VALUE){
                         vecino.vecino.distancia = u.distancia + 1;
+                        vecino.vecino.predecesor = u;
                         q.mete(vecino.vecino);
                     } 
             }
         }
 
-        return reconstruyeTrayectoriaMinima((aux, vecino) -> vecino.vecino.distancia == aux.distancia-1, t);
+        return reconstruyeTrayectoriaMinima(t);
     }
 
     /**
      * Metodo que reconstruye la trayectoria(tanto la mínima como la de peso minimo) 
-     * dado un vertice destino a el vertice origen.
-     * @param buscador elige el vecino por el cual continuar.
+     * siguiendo los predecesores desde el vertice destino hasta el origen.
      * @param t vertice destino del cual se construye la treyector'ia.
-     * @return La trayectoría reconstruida.
+     * @return La trayectoría reconstruida, del origen al destino.
      */
-    private  Lista<VerticeGrafica<T>> reconstruyeTrayectoriaMinima(BuscadorCamino<T> buscador, Vertice t){
-        if(t.distancia == Double.MAX_VALUE)
-            return new Lista<VerticeGrafica<T>>();
-        
+    private  Lista<VerticeGrafica<T>> reconstruyeTrayectoriaMinima(Vertice t){
         Lista<VerticeGrafica<T>> trayectoria = new Lista<>();
-        Vertice a = t;
-        trayectoria.agrega(a);
+        if(t.distancia == Double.MAX_VALUE)
+            return trayectoria;
         
-        while(a.distancia!=0){
-            for(Vecino vecino : a.vecinos)
-                if(buscador.seSiguen(a, vecino)){
-                    trayectoria.agrega(vecino.vecino);
-                    a = vecino.vecino;
-                }        
-        }
+        for(Vertice a = t; a != null; a = a.predecesor)
+            trayectoria.agregaInicio(a);
 
-        return trayectoria.reversa();
+        return trayectoria;
     }
 
     /**
@@ -686,23 +824,264 @@ public class Grafica<T> implements Coleccion<T> {
         Vertice s = (Vertice)vertice(origen);
         Vertice t = (Vertice)vertice(destino);
             
-        for(Vertice v : vertices)
+        for(Vertice v : vertices){
                 v.distancia = Double.MAX_VALUE;
+                v.estimacion = 0;
+        }
         
             s.distancia = 0;
+            s.predecesor = null;
+            expandidos = 0;
+            reordenamientos = 0;
         
-        MonticuloDijkstra <Vertice> monticulo = new MonticuloMinimo<>(vertices);
+        // los vértices entran al montículo hasta que se alcanzan
+        MonticuloDijkstra <Vertice> monticulo;
+        int pesoMaximo = pesoEnteroMaximo();
+        if(pesoMaximo > 0)
+            monticulo = new MonticuloCubetas<>(vertices.getElementos(), pesoMaximo, v -> (int)v.distancia);
+        else
+            monticulo = new MonticuloMinimo<>();
+        monticulo.agrega(s);
+
+        while(!monticulo.esVacia()){
+            Vertice u = monticulo.elimina();
+            expandidos++;
+            // la distancia del destino ya no puede mejorar
+            if(u == t)
+                break;
+            for(Vecino vecino : u.vecinos){
+                Vertice v = vecino.vecino;
+                if(v.distancia   > u.distancia  + vecino.peso){
+                    boolean nuevo = v.distancia == Double.MAX_VALUE;
+                    v.distancia = u.distancia + vecino.peso; 
+                    v.predecesor = u;
+                    if(nuevo){
+                        monticulo.agrega(v);
+                    }else{
+                        monticulo.reordena(v);
+                        reordenamientos++;
+                    }
+                }
+            }
+        }
+
+        return reconstruyeTrayectoriaMinima(t);
+    }
+
+    /**
+     * Calcula la ruta de peso mínimo entre el elemento de origen y el elemento
+     * de destino con A*: los vértices se expanden en orden de distancia desde
+     * el origen más la distancia estimada al destino, y la búsqueda termina en
+     * cuanto se expande el destino. Los vértices entran al montículo hasta que
+     * se alcanzan, así que sólo se tocan los vértices cercanos a la ruta.
+     * @param origen el vértice origen.
+     * @param destino el vértice destino.
+     * @param heuristica estima la distancia de cada elemento al destino; si
+     *        nunca sobreestima, la trayectoria es de peso mínimo.
+     * @return una trayectoria de peso mínimo entre el vértice <code>origen</code> y
+     *         el vértice <code>destino</code>. Si los vértices están en componentes
+     *         conexas distintas, regresa una lista vacía.
+     * @throws NoSuchElementException si alguno de los dos elementos no está en
+     *         la gráfica.
+     */
+    public Lista<VerticeGrafica<T>> aEstrella(T origen, T destino, Heuristica<T> heuristica) {
+        Vertice s = (Vertice)vertice(origen);
+        Vertice t = (Vertice)vertice(destino);
+
+        for(Vertice v : vertices)
+            v.distancia = Double.MAX_VALUE;
+
+        s.distancia = 0;
+        s.predecesor = null;
+        s.estimacion = heuristica.estima(s.elemento);
+        expandidos = 0;
+        reordenamientos = 0;
+
+        MonticuloMinimo<Vertice> monticulo = new MonticuloMinimo<>();
+        monticulo.agrega(s);
 
         while(!monticulo.esVacia()){
             Vertice u = monticulo.elimina();
+            expandidos++;
+            if(u == t)
+                break;
             for(Vecino vecino : u.vecinos){
-                if(vecino.vecino.distancia   > u.distancia  + vecino.peso){
-                    vecino.vecino.distancia = u.distancia + vecino.peso; 
-                    monticulo.reordena(vecino.vecino);
+                Vertice v = vecino.vecino;
+                if(v.distancia > u.distancia + vecino.peso){
+                    if(v.distancia == Double.MAX_VALUE)
+                        v.estimacion = heuristica.estima(v.elemento);
+                    v.distancia = u.distancia + vecino.peso;
+                    v.predecesor = u;
+                    if(monticulo.contiene(v)){
+                        monticulo.reordena(v);
+                        reordenamientos++;
+                    }else{
+                        monticulo.agrega(v);
+                    }
+                }
+            }
+        }
+
+        return reconstruyeTrayectoriaMinima(t);
+    }
+
+    /**
+     * Calcula la ruta de peso mínimo entre el elemento de origen y el elemento
+     * de destino con dijkstra bidireccional: una búsqueda crece desde el
+     * origen y otra desde el destino, siempre expandiendo la que tiene el
+     * mínimo menor. Cada arista que une las dos búsquedas da una trayectoria
+     * candidata; la búsqueda termina cuando la suma de los dos mínimos ya no
+     * puede mejorar a la mejor candidata. Supone que la gráfica no es
+     * dirigida y que los pesos no son negativos.
+     * @param origen el vértice origen.
+     * @param destino el vértice destino.
+     * @return una trayectoria de peso mínimo entre el vértice <code>origen</code> y
+     *         el vértice <code>destino</code>. Si los vértices están en componentes
+     *         conexas distintas, regresa una lista vacía.
+     * @throws NoSuchElementException si alguno de los dos elementos no está en
+     *         la gráfica.
+     */
+    public Lista<VerticeGrafica<T>> dijkstraBidireccional(T origen, T destino) {
+        Vertice s = (Vertice)vertice(origen);
+        Vertice t = (Vertice)vertice(destino);
+
+        for(Vertice v : vertices){
+            v.ida = null;
+            v.vuelta = null;
+        }
+        expandidos = 0;
+        reordenamientos = 0;
+
+        Lista<VerticeGrafica<T>> trayectoria = new Lista<>();
+        if(s == t){
+            trayectoria.agrega(s);
+            return trayectoria;
+        }
+
+        MonticuloMinimo<Etiqueta> monticuloIda = new MonticuloMinimo<>();
+        MonticuloMinimo<Etiqueta> monticuloVuelta = new MonticuloMinimo<>();
+        s.ida = new Etiqueta(s, 0, null);
+        t.vuelta = new Etiqueta(t, 0, null);
+        monticuloIda.agrega(s.ida);
+        monticuloVuelta.agrega(t.vuelta);
+
+        // la mejor trayectoria encontrada pasa por la arista entre los
+        // extremos de encuentroIda y encuentroVuelta
+        double mejor = Double.MAX_VALUE;
+        Etiqueta encuentroIda = null, encuentroVuelta = null;
+
+        while(!monticuloIda.esVacia() && !monticuloVuelta.esVacia()){
+            double minimoIda = monticuloIda.get(0).distancia;
+            double minimoVuelta = monticuloVuelta.get(0).distancia;
+            if(minimoIda + minimoVuelta >= mejor)
+                break;
+            boolean ida = minimoIda <= minimoVuelta;
+            MonticuloMinimo<Etiqueta> monticulo = ida ? monticuloIda : monticuloVuelta;
+            Etiqueta u = monticulo.elimina();
+            expandidos++;
+            for(Vecino vecino : u.vertice.vecinos){
+                Vertice v = vecino.vecino;
+                double d = u.distancia + vecino.peso;
+                Etiqueta e = ida ? v.ida : v.vuelta;
+                if(e == null){
+                    e = new Etiqueta(v, d, u);
+                    if(ida)
+                        v.ida = e;
+                    else
+                        v.vuelta = e;
+                    monticulo.agrega(e);
+                } else if(d < e.distancia){
+                    e.distancia = d;
+                    e.anterior = u;
+                    monticulo.reordena(e);
+                    reordenamientos++;
+                }
+                Etiqueta otra = ida ? v.vuelta : v.ida;
+                if(otra != null && d + otra.distancia < mejor){
+                    mejor = d + otra.distancia;
+                    encuentroIda = ida ? u : otra;
+                    encuentroVuelta = ida ? otra : u;
                 }
             }
         }
 
-        return reconstruyeTrayectoriaMinima((aux, vecino) -> (vecino.vecino.distancia + vecino.peso) == aux.distancia, t);
+        if(encuentroIda == null)
+            return trayectoria;
+        for(Etiqueta e = encuentroIda; e != null; e = e.anterior)
+            trayectoria.agregaInicio(e.vertice);
+        for(Etiqueta e = encuentroVuelta; e != null; e = e.anterior)
+            trayectoria.agregaFinal(e.vertice);
+        return trayectoria;
+    }
+
+    /**
+     * Regresa el número de vértices que expandió la última llamada a {@link
+     * #dijkstra}, {@link #aEstrella} o {@link #dijkstraBidireccional}.
+     * @return el número de vértices expandidos.
+     */
+    public int getExpandidos() {
+        return expandidos;
+    }
+
+    /**
+     * Regresa el número de veces que la última llamada a {@link #dijkstra},
+     * {@link #aEstrella} o {@link #dijkstraBidireccional} reordenó un vértice
+     * que ya estaba en el montículo.
+     * @return el número de reordenamientos.
+     */
+    public int getReordenamientos() {
+        return reordenamientos;
+    }
+
+    /**
+     * Regresa una copia inmutable de la gráfica en formato compacto. Los
+     * vértices de la copia tienen índices en el orden en que se agregaron a
+     * la gráfica, y sus vecinos en el orden en que se conectaron.
+     * @return una gráfica compacta con los mismos vértices, aristas y pesos.
+     */
+    public GraficaCompacta<T> compacta() {
+        int n = vertices.getElementos();
+        Object[] elementos = new Object[n];
+        int[] desplazamientos = new int[n + 1];
+        int i = 0;
+        for(Vertice v : vertices){
+            v.indice = i;
+            elementos[i] = v.elemento;
+            desplazamientos[i + 1] = desplazamientos[i] + v.vecinos.getElementos();
+            i++;
+        }
+        int[] vecinos = new int[desplazamientos[n]];
+        double[] pesos = new double[desplazamientos[n]];
+        int k = 0;
+        for(Vertice v : vertices)
+            for(Vecino vecino : v.vecinos){
+                vecinos[k] = vecino.vecino.indice;
+                pesos[k++] = vecino.peso;
+            }
+        @SuppressWarnings("unchecked") T[] arreglo = (T[])elementos;
+        return new GraficaCompacta<>(arreglo, desplazamientos, vecinos, pesos, dispersor);
+    }
+
+    /* Regresa el peso máximo de las aristas si todos los pesos son enteros
+     * menores o iguales a PESO_MAXIMO_CUBETAS y ninguna trayectoria puede
+     * desbordar un int; en otro caso regresa -1. Sólo recorre las aristas si
+     * la gráfica cambió desde la última vez. */
+    private int pesoEnteroMaximo() {
+        if(pesoEntero == PESO_DESCONOCIDO)
+            pesoEntero = calculaPesoEnteroMaximo();
+        return pesoEntero;
+    }
+
+    private int calculaPesoEnteroMaximo() {
+        int maximo = 0;
+        for(Vertice v : vertices)
+            for(Vecino vecino : v.vecinos){
+                if(vecino.peso != Math.rint(vecino.peso) || vecino.peso > PESO_MAXIMO_CUBETAS)
+                    return -1;
+                maximo = Math.max(maximo, (int)vecino.peso);
+            }
+        if(maximo == 0 || (long)maximo * vertices.getElementos() > Integer.MAX_VALUE)
+            return -1;
+        return maximo;
     }
 }
\ No newline at end of file
@@ -0,0 +1,483 @@
+package mx.unam.ciencias.edd;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Clase para gráficas inmutables en formato compacto (CSR). Los vértices se
+ * identifican por un índice entre 0 y <i>n</i>-1; los vecinos del vértice
+ * <i>i</i> son <code>vecinos[desplazamientos[i]]</code> hasta
+ * <code>vecinos[desplazamientos[i+1]-1]</code>, con sus pesos en las mismas
+ * posiciones de <code>pesos</code>. Los recorridos trabajan sobre esos tres
+ * arreglos de primitivos, sin listas ni objetos por arista.
+ *
+ * Se construye con {@link Grafica#compacta} o directamente con los arreglos.
+ * Cada arista no dirigida aparece una vez en la lista de cada uno de sus
+ * vértices.
+ */
+public class GraficaCompacta<T> implements Iterable<T> {
+
+    /* Clase interna privada para iteradores. */
+    private class Iterador implements Iterator<T> {
+
+        /* El índice del siguiente elemento. */
+        private int indice;
+
+        /* Nos dice si hay un siguiente elemento. */
+        @Override public boolean hasNext() {
+            return indice < elementos.length;
+        }
+
+        /* Regresa el siguiente elemento. */
+        @Override public T next() {
+            if (indice >= elementos.length)
+                throw new NoSuchElementException("No hay siguiente elemento.");
+            return get(indice++);
+        }
+    }
+
+    /* Clase interna privada para ver un índice como vértice de gráfica. */
+    private class Vista implements VerticeGrafica<T> {
+
+        /* El índice del vértice. */
+        private int indice;
+
+        /* Crea una vista del vértice con el índice dado. */
+        public Vista(int indice) {
+            this.indice = indice;
+        }
+
+        /* Regresa el elemento del vértice. */
+        @Override public T get() {
+            return GraficaCompacta.this.get(indice);
+        }
+
+        /* Regresa el grado del vértice. */
+        @Override public int getGrado() {
+            return GraficaCompacta.this.getGrado(indice);
+        }
+
+        /* La gráfica compacta no guarda colores. */
+        @Override public Color getColor() {
+            return Color.NINGUNO;
+        }
+
+        /* Regresa un iterable para los vecinos. */
+        @Override public Iterable<? extends VerticeGrafica<T>> vecinos() {
+            Lista<Vista> lista = new Lista<>();
+            for (int k = desplazamientos[indice]; k < desplazamientos[indice + 1]; k++)
+                lista.agrega(new Vista(vecinos[k]));
+            return lista;
+        }
+    }
+
+    /* Los elementos, por índice de vértice. */
+    private Object[] elementos;
+    /* Dónde empiezan los vecinos de cada vértice; tiene n+1 entradas. */
+    private int[] desplazamientos;
+    /* Los índices de los vecinos de todos los vértices. */
+    private int[] vecinos;
+    /* El peso de cada arista en vecinos. */
+    private double[] pesos;
+    /* El dispersor para buscar elementos. */
+    private Dispersor<T> dispersor;
+    /* Tabla de direccionamiento abierto de elementos a índice+1 (0 es vacío);
+     * se construye la primera vez que se busca un elemento. */
+    private int[] tabla;
+    /* Número de vértices expandidos por el último dijkstra. */
+    private int expandidos;
+    /* Número de veces que el último dijkstra subió un vértice que ya estaba
+     * en el montículo. */
+    private int reordenamientos;
+
+    /**
+     * Construye una gráfica compacta a partir de sus arreglos, que no se
+     * copian y no deben modificarse después. Los elementos se buscan con
+     * {@link FabricaDispersores#dispersorObjeto}.
+     * @param elementos el elemento de cada vértice.
+     * @param desplazamientos dónde empiezan los vecinos de cada vértice, con
+     *        una entrada final igual al número de vecinos.
+     * @param vecinos los índices de los vecinos.
+     * @param pesos el peso de cada arista en <code>vecinos</code>.
+     * @throws IllegalArgumentException si los arreglos no son consistentes o
+     *         algún peso no es positivo.
+     */
+    public GraficaCompacta(T[] elementos, int[] desplazamientos,
+                           int[] vecinos, double[] pesos) {
+        this(elementos, desplazamientos, vecinos, pesos,
+             FabricaDispersores.dispersorObjeto());
+    }
+
+    /**
+     * Construye una gráfica compacta a partir de sus arreglos, que no se
+     * copian y no deben modificarse después.
+     * @param elementos el elemento de cada vértice.
+     * @param desplazamientos dónde empiezan los vecinos de cada vértice, con
+     *        una entrada final igual al número de vecinos.
+     * @param vecinos los índices de los vecinos.
+     * @param pesos el peso de cada arista en <code>vecinos</code>.
+     * @param dispersor el dispersor para buscar elementos; debe ser
+     *        consistente con {@link Object#equals} de los elementos.
+     * @throws IllegalArgumentException si los arreglos no son consistentes o
+     *         algún peso no es positivo.
+     */
+    public GraficaCompacta(T[] elementos, int[] desplazamientos, int[] vecinos,
+                           double[] pesos, Dispersor<T> dispersor) {
+        int n = elementos.length;
+        if (desplazamientos.length != n + 1 || desplazamientos[0] != 0
+            || desplazamientos[n] != vecinos.length || pesos.length != vecinos.length)
+            throw new IllegalArgumentException("Los arreglos de la gráfica no son consistentes.");
+        for (int i = 0; i < n; i++)
+            if (desplazamientos[i] > desplazamientos[i + 1])
+                throw new IllegalArgumentException("Los desplazamientos deben ser no decrecientes.");
+        for (int k = 0; k < vecinos.length; k++) {
+            if (vecinos[k] < 0 || vecinos[k] >= n)
+                throw new IllegalArgumentException("Vecino fuera de la gráfica: " + vecinos[k]);
+            if (!(pesos[k] > 0))
+                throw new IllegalArgumentException("Los pesos deben ser positivos.");
+        }
+        this.elementos = elementos;
+        this.desplazamientos = desplazamientos;
+        this.vecinos = vecinos;
+        this.pesos = pesos;
+        this.dispersor = dispersor;
+    }
+
+    /**
+     * Regresa el número de vértices de la gráfica.
+     * @return el número de vértices de la gráfica.
+     */
+    public int getElementos() {
+        return elementos.length;
+    }
+
+    /**
+     * Regresa el número de aristas de la gráfica.
+     * @return el número de aristas de la gráfica.
+     */
+    public int getAristas() {
+        return vecinos.length / 2;
+    }
+
+    /**
+     * Regresa el elemento del vértice con el índice dado.
+     * @param i el índice del vértice.
+     * @return el elemento del vértice.
+     * @throws NoSuchElementException si el índice es inválido.
+     */
+    @SuppressWarnings("unchecked") public T get(int i) {
+        if (i < 0 || i >= elementos.length)
+            throw new NoSuchElementException("Indice invalido.");
+        return (T)elementos[i];
+    }
+
+    /**
+     * Regresa el grado del vértice con el índice dado.
+     * @param i el índice del vértice.
+     * @return el número de vecinos del vértice.
+     */
+    public int getGrado(int i) {
+        return desplazamientos[i + 1] - desplazamientos[i];
+    }
+
+    /**
+     * Regresa el índice del vértice de un elemento.
+     * @param elemento el elemento que buscamos.
+     * @return el índice del vértice del elemento, o -1 si no está.
+     */
+    public int indiceDe(T elemento) {
+        if (tabla == null)
+            construyeTabla();
+        int mascara = tabla.length - 1;
+        for (int p = dispersor.dispersa(elemento) & mascara; tabla[p] != 0; p = (p + 1) & mascara)
+            if (elementos[tabla[p] - 1].equals(elemento))
+                return tabla[p] - 1;
+        return -1;
+    }
+
+    /**
+     * Nos dice si el elemento está contenido en la gráfica.
+     * @param elemento el elemento que buscamos.
+     * @return <code>true</code> si el elemento está en la gráfica,
+     *         <code>false</code> en otro caso.
+     */
+    public boolean contiene(T elemento) {
+        return indiceDe(elemento) != -1;
+    }
+
+    /**
+     * Regresa el vértice correspondiente el elemento recibido.
+     * @param elemento el elemento del que queremos el vértice.
+     * @throws NoSuchElementException si elemento no es elemento de la gráfica.
+     * @return el vértice correspondiente el elemento recibido.
+     */
+    public VerticeGrafica<T> vertice(T elemento) {
+        return new Vista(indice(elemento));
+    }
+
+    /* La tabla tiene al menos el doble de lugares que elementos. */
+    @SuppressWarnings("unchecked") private void construyeTabla() {
+        int capacidad = 2;
+        while (capacidad < 2 * elementos.length)
+            capacidad <<= 1;
+        int[] t = new int[capacidad];
+        for (int i = 0; i < elementos.length; i++) {
+            int p = dispersor.dispersa((T)elementos[i]) & (capacidad - 1);
+            while (t[p] != 0)
+                p = (p + 1) & (capacidad - 1);
+            t[p] = i + 1;
+        }
+        tabla = t;
+    }
+
+    /* Regresa el índice del elemento o lanza NoSuchElementException. */
+    private int indice(T elemento) {
+        int i = indiceDe(elemento);
+        if (i == -1)
+            throw new NoSuchElementException("El elemento no está en la gráfica.");
+        return i;
+    }
+
+    /**
+     * Realiza la acción recibida en todos los vértices de la gráfica, en el
+     * orden determinado por BFS, comenzando por el vértice correspondiente al
+     * elemento recibido.
+     * @param elemento el elemento sobre cuyo vértice queremos comenzar el
+     *        recorrido.
+     * @param accion la acción a realizar.
+     * @throws NoSuchElementException si el elemento no está en la gráfica.
+     */
+    public void bfs(T elemento, AccionVerticeGrafica<T> accion) {
+        recorre(indice(elemento), accion, true);
+    }
+
+    /**
+     * Realiza la acción recibida en todos los vértices de la gráfica, en el
+     * orden determinado por DFS, comenzando por el vértice correspondiente al
+     * elemento recibido.
+     * @param elemento el elemento sobre cuyo vértice queremos comenzar el
+     *        recorrido.
+     * @param accion la acción a realizar.
+     * @throws NoSuchElementException si el elemento no está en la gráfica.
+     */
+    public void dfs(T elemento, AccionVerticeGrafica<T> accion) {
+        recorre(indice(elemento), accion, false);
+    }
+
+    /* BFS con el arreglo como cola o DFS con el arreglo como pila; cada
+     * vértice se marca al entrar, así que entra a lo más una vez. */
+    private void recorre(int origen, AccionVerticeGrafica<T> accion, boolean cola) {
+        boolean[] visto = new boolean[elementos.length];
+        int[] pendientes = new int[elementos.length];
+        int inicio = 0, fin = 0;
+        pendientes[fin++] = origen;
+        visto[origen] = true;
+        while (inicio < fin) {
+            int u = cola ? pendientes[inicio++] : pendientes[--fin];
+            accion.actua(new Vista(u));
+            for (int k = desplazamientos[u]; k < desplazamientos[u + 1]; k++) {
+                int v = vecinos[k];
+                if (!visto[v]) {
+                    visto[v] = true;
+                    pendientes[fin++] = v;
+                }
+            }
+        }
+    }
+
+    /**
+     * Calcula una trayectoria de distancia mínima entre dos vértices.
+     * @param origen el vértice de origen.
+     * @param destino el vértice de destino.
+     * @return Una lista con vértices de la gráfica, tal que forman una
+     *         trayectoria de distancia mínima entre los vértices <code>a</code> y
+     *         <code>b</code>. Si los elementos se encuentran en componentes conexos
+     *         distintos, el algoritmo regresa una lista vacía.
+     * @throws NoSuchElementException si alguno de los dos elementos no está en
+     *         la gráfica.
+     */
+    public Lista<VerticeGrafica<T>> trayectoriaMinima(T origen, T destino) {
+        return vistas(trayectoriaMinimaPorIndice(indice(origen), indice(destino)));
+    }
+
+    /**
+     * Calcula una trayectoria de distancia mínima entre dos vértices dados
+     * por índice, con BFS que termina al alcanzar el destino.
+     * @param origen el índice del vértice de origen.
+     * @param destino el índice del vértice de destino.
+     * @return los índices de los vértices de la trayectoria, del origen al
+     *         destino; un arreglo vacío si no hay trayectoria.
+     */
+    public int[] trayectoriaMinimaPorIndice(int origen, int destino) {
+        int[] predecesor = new int[elementos.length];
+        for (int i = 0; i < predecesor.length; i++)
+            predecesor[i] = -2;
+        int[] cola = new int[elementos.length];
+        int inicio = 0, fin = 0;
+        cola[fin++] = origen;
+        predecesor[origen] = -1;
+        while (inicio < fin && predecesor[destino] == -2) {
+            int u = cola[inicio++];
+            for (int k = desplazamientos[u]; k < desplazamientos[u + 1]; k++) {
+                int v = vecinos[k];
+                if (predecesor[v] == -2) {
+                    predecesor[v] = u;
+                    cola[fin++] = v;
+                }
+            }
+        }
+        return trayectoria(predecesor, destino);
+    }
+
+    /**
+     * Calcula la ruta de peso mínimo entre el elemento de origen y el elemento
+     * de destino.
+     * @param origen el vértice origen.
+     * @param destino el vértice destino.
+     * @return una trayectoria de peso mínimo entre el vértice <code>origen</code> y
+     *         el vértice <code>destino</code>. Si los vértices están en componentes
+     *         conexas distintas, regresa una lista vacía.
+     * @throws NoSuchElementException si alguno de los dos elementos no está en
+     *         la gráfica.
+     */
+    public Lista<VerticeGrafica<T>> dijkstra(T origen, T destino) {
+        return vistas(dijkstraPorIndice(indice(origen), indice(destino)));
+    }
+
+    /**
+     * Calcula la ruta de peso mínimo entre dos vértices dados por índice, con
+     * un montículo mínimo indexado de enteros que termina al sacar el
+     * destino.
+     * @param origen el índice del vértice de origen.
+     * @param destino el índice del vértice de destino.
+     * @return los índices de los vértices de la trayectoria, del origen al
+     *         destino; un arreglo vacío si no hay trayectoria.
+     */
+    public int[] dijkstraPorIndice(int origen, int destino) {
+        int n = elementos.length;
+        double[] distancia = new double[n];
+        int[] predecesor = new int[n];
+        int[] monticulo = new int[n];
+        int[] posicion = new int[n];
+        for (int i = 0; i < n; i++) {
+            distancia[i] = Double.MAX_VALUE;
+            predecesor[i] = -2;
+            posicion[i] = -1;
+        }
+        distancia[origen] = 0;
+        predecesor[origen] = -1;
+        monticulo[0] = origen;
+        posicion[origen] = 0;
+        int elementosMonticulo = 1;
+        expandidos = 0;
+        reordenamientos = 0;
+
+        while (elementosMonticulo > 0) {
+            int u = monticulo[0];
+            posicion[u] = -1;
+            if (--elementosMonticulo > 0)
+                acomodaAbajo(monticulo, posicion, distancia, elementosMonticulo,
+                             monticulo[elementosMonticulo]);
+            expandidos++;
+            if (u == destino)
+                break;
+            for (int k = desplazamientos[u]; k < desplazamientos[u + 1]; k++) {
+                int v = vecinos[k];
+                double d = distancia[u] + pesos[k];
+                if (d >= distancia[v])
+                    continue;
+                distancia[v] = d;
+                predecesor[v] = u;
+                int i = posicion[v];
+                if (i == -1)
+                    i = elementosMonticulo++;
+                else
+                    reordenamientos++;
+                acomodaArriba(monticulo, posicion, distancia, i, v);
+            }
+        }
+        return trayectoria(predecesor, destino);
+    }
+
+    /**
+     * Regresa el número de vértices que expandió el último {@link
+     * #dijkstra}.
+     * @return el número de vértices expandidos.
+     */
+    public int getExpandidos() {
+        return expandidos;
+    }
+
+    /**
+     * Regresa el número de veces que el último {@link #dijkstra} reordenó un
+     * vértice que ya estaba en el montículo.
+     * @return el número de reordenamientos.
+     */
+    public int getReordenamientos() {
+        return reordenamientos;
+    }
+
+    /* Sube al vértice v desde el lugar i del montículo. */
+    private static void acomodaArriba(int[] monticulo, int[] posicion,
+                                      double[] distancia, int i, int v) {
+        while (i > 0) {
+            int p = (i - 1) / 2;
+            if (distancia[monticulo[p]] <= distancia[v])
+                break;
+            monticulo[i] = monticulo[p];
+            posicion[monticulo[i]] = i;
+            i = p;
+        }
+        monticulo[i] = v;
+        posicion[v] = i;
+    }
+
+    /* Baja al vértice v desde la raíz de un montículo con n elementos. */
+    private static void acomodaAbajo(int[] monticulo, int[] posicion,
+                                     double[] distancia, int n, int v) {
+        int i = 0;
+        while (2 * i + 1 < n) {
+            int h = 2 * i + 1;
+            if (h + 1 < n && distancia[monticulo[h + 1]] < distancia[monticulo[h]])
+                h++;
+            if (distancia[v] <= distancia[monticulo[h]])
+                break;
+            monticulo[i] = monticulo[h];
+            posicion[monticulo[i]] = i;
+            i = h;
+        }
+        monticulo[i] = v;
+        posicion[v] = i;
+    }
+
+    /* Sigue los predecesores desde el destino; -2 marca un vértice no
+     * alcanzado y -1 al origen. */
+    private static int[] trayectoria(int[] predecesor, int destino) {
+        if (predecesor[destino] == -2)
+            return new int[0];
+        int longitud = 0;
+        for (int v = destino; v != -1; v = predecesor[v])
+            longitud++;
+        int[] trayectoria = new int[longitud];
+        for (int v = destino; v != -1; v = predecesor[v])
+            trayectoria[--longitud] = v;
+        return trayectoria;
+    }
+
+    /* Convierte una trayectoria de índices en una lista de vértices. */
+    private Lista<VerticeGrafica<T>> vistas(int[] trayectoria) {
+        Lista<VerticeGrafica<T>> lista = new Lista<>();
+        for (int i : trayectoria)
+            lista.agrega(new Vista(i));
+        return lista;
+    }
+
+    /**
+     * Regresa un iterador para iterar la gráfica. La gráfica se itera en el
+     * orden de los índices de sus vértices.
+     * @return un iterador para iterar la gráfica.
+     */
+    @Override public Iterator<T> iterator() {
+        return new Iterador();
+    }
+}
@@ -0,0 +1,17 @@
+package mx.unam.ciencias.edd;
+
+/**
+ * Interfaz para heurísticas de búsqueda en gráficas.
+ */
+@FunctionalInterface
+public interface Heuristica<T> {
+
+    /**
+     * Estima la distancia del elemento recibido al destino de la búsqueda.
+     * Para que la búsqueda regrese una trayectoria de peso mínimo la
+     * estimación nunca debe ser mayor a la distancia real.
+     * @param elemento el elemento del que queremos la estimación.
+     * @return la distancia estimada del elemento al destino.
+     */
+    public double estima(T elemento);
+}
@@ -47,6 +47,25 @@ public class MonticuloArreglo<T extends ComparableIndexable<T>>
         elemento.setIndice(indice);
     }
 
+    /**
+     * Agrega un elemento en el primer lugar libre del arreglo, creciéndolo si
+     * no hay lugar.
+     * @param elemento el elemento a agregar.
+     */
+    @Override public void agrega(T elemento) {
+        int indice = 0;
+        while(indice<arreglo.length && arreglo[indice]!=null)
+            indice++;
+        if(indice==arreglo.length){
+            T[] nuevo = nuevoArreglo(Math.max(1, arreglo.length*2));
+            for(int i=0; i<arreglo.length; i++)
+                nuevo[i]=arreglo[i];
+            arreglo = nuevo;
+        }
+        agregaEn(elemento, indice);
+        elementos++;
+    }
+
     /**
      * Elimina el elemento mínimo del montículo.
      * @return el elemento mínimo del montículo.
@@ -0,0 +1,236 @@
+package mx.unam.ciencias.edd;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Clase para montículos de Dijkstra con cubetas (algoritmo de Dial). Sirve
+ * cuando los pesos de las aristas son enteros entre 1 y <i>C</i>: las
+ * prioridades pendientes siempre están entre la última prioridad eliminada y
+ * ésta más <i>C</i>, así que bastan <i>C</i>+1 cubetas en un arreglo circular.
+ * Reordenar un elemento es <i>O</i>(1) y eliminar el mínimo es
+ * <i>O</i>(<i>C</i>) en el peor caso.
+ *
+ * Los elementos con prioridad infinita (negativa) se guardan aparte y se
+ * eliminan al final, cuando todas las cubetas están vacías.
+ */
+public class MonticuloCubetas<T extends ComparableIndexable<T>>
+    implements MonticuloDijkstra<T> {
+
+    /* Marca de un elemento que ya no está en el montículo. */
+    private static final int FUERA = -1;
+    /* Marca de un elemento con prioridad infinita. */
+    private static final int INFINITO = -2;
+
+    /* Número de elementos en el montículo. */
+    private int elementos;
+    /* Número de elementos recibidos; el siguiente recibe este índice. */
+    private int recibidos;
+    /* Los elementos, en el orden en que se recibieron. */
+    private T[] arreglo;
+    /* La prioridad de cada elemento. */
+    private PrioridadEntera<T> prioridad;
+    /* La cabeza de la lista de cada cubeta. */
+    private int[] cubetas;
+    /* Lista doblemente ligada de cada cubeta, por índice de elemento. */
+    private int[] siguiente, anterior;
+    /* La cubeta de cada elemento, FUERA o INFINITO. */
+    private int[] cubetaDe;
+    /* Cabeza de la lista de elementos con prioridad infinita. */
+    private int infinitos;
+    /* La prioridad del último elemento eliminado. */
+    private int actual;
+
+    /* Truco para crear arreglos genéricos. Es necesario hacerlo así por cómo
+       Java implementa sus genéricos; de otra forma obtenemos advertencias del
+       compilador. */
+    @SuppressWarnings("unchecked") private T[] nuevoArreglo(int n) {
+        return (T[])(new ComparableIndexable[n]);
+    }
+
+    /**
+     * Construye un nuevo montículo de Dijkstra con cubetas a partir de un
+     * iterable.
+     * @param iterable el iterable a partir de la cual construir el montículo.
+     * @param n el número de elementos en el iterable.
+     * @param pesoMaximo el peso entero máximo de una arista.
+     * @param prioridad la prioridad entera de los elementos.
+     * @throws IllegalArgumentException si el peso máximo es menor que 1.
+     */
+    public MonticuloCubetas(Iterable<T> iterable, int n, int pesoMaximo,
+                            PrioridadEntera<T> prioridad) {
+        this(n, pesoMaximo, prioridad);
+        actual = Integer.MAX_VALUE;
+        for (T e : iterable) {
+            arreglo[recibidos] = e;
+            e.setIndice(recibidos++);
+            int p = prioridad.prioridad(e);
+            if (p >= 0 && p < actual)
+                actual = p;
+        }
+        if (actual == Integer.MAX_VALUE)
+            actual = 0;
+        for (int i = 0; i < recibidos; i++)
+            inserta(i, prioridad.prioridad(arreglo[i]));
+        elementos = recibidos;
+    }
+
+    /**
+     * Construye un nuevo montículo de Dijkstra con cubetas vacío, para
+     * agregar los elementos con {@link #agrega} conforme se alcanzan.
+     * @param n la capacidad inicial del montículo.
+     * @param pesoMaximo el peso entero máximo de una arista.
+     * @param prioridad la prioridad entera de los elementos.
+     * @throws IllegalArgumentException si el peso máximo es menor que 1.
+     */
+    public MonticuloCubetas(int n, int pesoMaximo, PrioridadEntera<T> prioridad) {
+        if (pesoMaximo < 1)
+            throw new IllegalArgumentException("El peso máximo debe ser positivo.");
+        this.prioridad = prioridad;
+        n = Math.max(n, 1);
+        arreglo = nuevoArreglo(n);
+        cubetas = new int[pesoMaximo + 1];
+        siguiente = new int[n];
+        anterior = new int[n];
+        cubetaDe = new int[n];
+        infinitos = -1;
+        for (int i = 0; i < cubetas.length; i++)
+            cubetas[i] = -1;
+    }
+
+    /**
+     * Agrega un elemento al montículo, en la cubeta de su prioridad.
+     * @param elemento el elemento a agregar.
+     * @throws IllegalArgumentException si la prioridad del elemento es menor
+     *         que la del último elemento eliminado, o mayor que ésta más el
+     *         peso máximo.
+     */
+    @Override public void agrega(T elemento) {
+        if (recibidos == arreglo.length)
+            crece();
+        arreglo[recibidos] = elemento;
+        elemento.setIndice(recibidos);
+        inserta(recibidos++, prioridad.prioridad(elemento));
+        elementos++;
+    }
+
+    /* Duplica la capacidad de los arreglos indexados por elemento. */
+    private void crece() {
+        int n = arreglo.length * 2;
+        T[] nuevo = nuevoArreglo(n);
+        System.arraycopy(arreglo, 0, nuevo, 0, recibidos);
+        arreglo = nuevo;
+        siguiente = Arrays.copyOf(siguiente, n);
+        anterior = Arrays.copyOf(anterior, n);
+        cubetaDe = Arrays.copyOf(cubetaDe, n);
+    }
+
+    /* Inserta el elemento con índice i en la cubeta de la prioridad p. */
+    private void inserta(int i, int p) {
+        if (p < 0) {
+            cubetaDe[i] = INFINITO;
+            liga(i, infinitos);
+            infinitos = i;
+            return;
+        }
+        if (p < actual || p - actual >= cubetas.length)
+            throw new IllegalArgumentException("Prioridad fuera del rango de las cubetas.");
+        int c = p % cubetas.length;
+        cubetaDe[i] = c;
+        liga(i, cubetas[c]);
+        cubetas[c] = i;
+    }
+
+    /* Pone al elemento i antes de la cabeza recibida. */
+    private void liga(int i, int cabeza) {
+        anterior[i] = -1;
+        siguiente[i] = cabeza;
+        if (cabeza != -1)
+            anterior[cabeza] = i;
+    }
+
+    /* Saca al elemento i de la lista en la que esté. */
+    private void desliga(int i) {
+        if (anterior[i] != -1)
+            siguiente[anterior[i]] = siguiente[i];
+        else if (cubetaDe[i] == INFINITO)
+            infinitos = siguiente[i];
+        else
+            cubetas[cubetaDe[i]] = siguiente[i];
+        if (siguiente[i] != -1)
+            anterior[siguiente[i]] = anterior[i];
+        cubetaDe[i] = FUERA;
+    }
+
+    /**
+     * Elimina el elemento mínimo del montículo.
+     * @return el elemento mínimo del montículo.
+     * @throws IllegalStateException si el montículo es vacío.
+     */
+    @Override public T elimina() {
+        if (elementos == 0)
+            throw new IllegalStateException("El montículo se encuentra vacío.");
+
+        int i = -1;
+        for (int k = 0; k < cubetas.length; k++) {
+            int c = (actual + k) % cubetas.length;
+            if (cubetas[c] != -1) {
+                i = cubetas[c];
+                actual += k;
+                break;
+            }
+        }
+        if (i == -1)
+            i = infinitos;
+
+        desliga(i);
+        elementos--;
+        return arreglo[i];
+    }
+
+    /**
+     * Reordena un elemento en el montículo, moviéndolo a la cubeta de su
+     * prioridad actual.
+     * @param elemento el elemento que hay que reordenar.
+     * @throws IllegalArgumentException si la nueva prioridad es menor que la
+     *         del último elemento eliminado, o mayor que ésta más el peso
+     *         máximo.
+     */
+    @Override public void reordena(T elemento) {
+        int i = elemento.getIndice();
+        if (cubetaDe[i] == FUERA)
+            return;
+        desliga(i);
+        inserta(i, prioridad.prioridad(elemento));
+    }
+
+    /**
+     * Regresa el <i>i</i>-ésimo elemento recibido por el montículo.
+     * @param i el índice del elemento que queremos.
+     * @return el <i>i</i>-ésimo elemento recibido por el montículo.
+     * @throws NoSuchElementException si i es menor que cero, o mayor o igual
+     *         que el número de elementos recibidos.
+     */
+    @Override public T get(int i) {
+        if (i < 0 || i >= recibidos)
+            throw new NoSuchElementException("Indice invalido.");
+        return arreglo[i];
+    }
+
+    /**
+     * Nos dice si el montículo es vacío.
+     * @return <code>true</code> si ya no hay elementos en el montículo,
+     *         <code>false</code> en otro caso.
+     */
+    @Override public boolean esVacia() {
+        return elementos == 0;
+    }
+
+    /**
+     * Regresa el número de elementos en el montículo.
+     * @return el número de elementos en el montículo.
+     */
+    @Override public int getElementos() {
+        return elementos;
+    }
+}
@@ -14,6 +14,13 @@ public interface MonticuloDijkstra<T extends ComparableIndexable<T>> {
      */
     public T elimina();
 
+    /**
+     * Agrega un elemento al montículo. Dijkstra lo usa para meter a cada
+     * vértice hasta que lo alcanza, en lugar de meter a todos al inicio.
+     * @param elemento el elemento a agregar.
+     */
+    public void agrega(T elemento);
+
     /**
      * Reordena un elemento en el árbol. Por omisión no hace nada.
      * @param elemento el elemento que hay que reordenar.
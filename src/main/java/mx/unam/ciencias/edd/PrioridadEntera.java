@@ -0,0 +1,16 @@
+package mx.unam.ciencias.edd;
+
+/**
+ * Interfaz para obtener la prioridad entera de un elemento.
+ */
+@FunctionalInterface
+public interface PrioridadEntera<T> {
+
+    /**
+     * Regresa la prioridad entera del elemento recibido.
+     * @param elemento el elemento del que queremos la prioridad.
+     * @return la prioridad del elemento; un valor negativo representa una
+     *         prioridad infinita.
+     */
+    public int prioridad(T elemento);
+}
@@ -0,0 +1,13 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+/**
+ * Enumeración para los algoritmos disponibles para resolver laberintos.
+ */
+public enum AlgoritmoBusqueda {
+    /** Dijkstra desde la entrada. */
+    DIJKSTRA,
+    /** A* con la distancia Manhattan a la salida como heurística. */
+    AESTRELLA,
+    /** Dijkstra desde la entrada y desde la salida a la vez. */
+    BIDIRECCIONAL;
+}
@@ -0,0 +1,23 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+/**
+ * Enumeración para los algoritmos disponibles para generar laberintos.
+ */
+public enum AlgoritmoMaze {
+    /** DFS aleatorio que sólo abre un camino de la entrada a la salida. */
+    CAMINO,
+    /** DFS aleatorio con retroceso sobre todo el laberinto (laberinto perfecto). */
+    BACKTRACKER,
+    /** Kruskal aleatorio con conjuntos disjuntos. */
+    KRUSKAL,
+    /** Prim aleatorio sobre la frontera de cuartos. */
+    PRIM,
+    /** Wilson, con caminatas aleatorias sin ciclos. */
+    WILSON,
+    /** Eller, un renglón a la vez. */
+    ELLER,
+    /** Árbol binario: cada cuarto abre al norte o al oeste. */
+    ARBOL_BINARIO,
+    /** Sidewinder: corridas al este que se cierran abriendo al norte. */
+    SIDEWINDER;
+}
@@ -0,0 +1,250 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Clase para un cache de trayectorias indexado por el contenido del
+ * laberinto. La llave es SHA-256 de las dimensiones, los cuartos y la
+ * configuracion de la busqueda, así que dos archivos con los mismos cuartos
+ * comparten su solucion sin importar su nombre.
+ *
+ * Cada trayectoria se guarda como su primer cuarto y dos bits por paso. Hay
+ * un nivel en memoria que saca primero a la trayectoria usada hace más
+ * tiempo cuando se pasa del limite de bytes, y un nivel opcional en un
+ * directorio, con un archivo por llave, que sobrevive entre ejecuciones. Se
+ * puede usar desde varios hilos a la vez.
+ */
+public class CacheSoluciones {
+
+    /**Limite por omision del nivel en memoria en bytes*/
+    public static final long CAPACIDAD_DEFAULT = 64L << 20;
+
+    /* Bytes que se suman por entrada además de la trayectoria codificada. */
+    private static final int BYTES_POR_ENTRADA = 128;
+
+    private static final char[] HEXADECIMAL = "0123456789abcdef".toCharArray();
+
+    /* Las trayectorias codificadas en orden de uso, la menos reciente
+     * primero. */
+    private LinkedHashMap<String, byte[]> memoria = new LinkedHashMap<>(16, 0.75f, true);
+    private long capacidad;
+    private long ocupados;
+    /* Directorio del nivel en disco, o null si no hay. */
+    private Path directorio;
+
+    private AtomicLong aciertosMemoria = new AtomicLong();
+    private AtomicLong aciertosDisco = new AtomicLong();
+    private AtomicLong fallos = new AtomicLong();
+
+    /**
+    * Constructor para un cache con el limite de bytes en memoria dado y el
+    * directorio del nivel en disco, o null para usar solo la memoria
+    */
+    public CacheSoluciones(long capacidad, Path directorio) throws IOException {
+        if (capacidad < 0)
+            throw new IllegalArgumentException("La capacidad no puede ser negativa.");
+        this.capacidad = capacidad;
+        this.directorio = directorio;
+        if (directorio != null)
+            Files.createDirectories(directorio);
+    }
+
+    /**
+    * Regresa la llave de un laberinto: SHA-256 en hexadecimal de sus
+    * dimensiones, sus cuartos y la configuracion dada (modo y busqueda)
+    */
+    public static String llave(ByteBuffer cuartos, int columnas, int renglones, String configuracion) {
+        MessageDigest sha;
+        try {
+            sha = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // toda maquina virtual de Java debe tener SHA-256
+            throw new IllegalStateException(e);
+        }
+        sha.update(ByteBuffer.allocate(8).putInt(columnas).putInt(renglones).array());
+        sha.update(cuartos.duplicate());
+        sha.update(configuracion.getBytes(StandardCharsets.UTF_8));
+        byte[] digesto = sha.digest();
+        char[] llave = new char[2 * digesto.length];
+        for (int i = 0; i < digesto.length; i++) {
+            llave[2 * i] = HEXADECIMAL[(digesto[i] >> 4) & 0x0F];
+            llave[2 * i + 1] = HEXADECIMAL[digesto[i] & 0x0F];
+        }
+        return new String(llave);
+    }
+
+    /**
+    * Metodo que busca la trayectoria de la llave para un laberinto con las
+    * dimensiones dadas, primero en memoria y luego en disco; regresa null si
+    * no esta o si lo guardado no es una trayectoria de ese laberinto
+    */
+    public int[] busca(String llave, int columnas, int renglones) {
+        byte[] codificada;
+        synchronized (this) {
+            codificada = memoria.get(llave);
+        }
+        if (codificada != null) {
+            int[] trayectoria = decodifica(codificada, columnas, renglones);
+            if (trayectoria != null) {
+                aciertosMemoria.incrementAndGet();
+                return trayectoria;
+            }
+        }
+        if (directorio != null) {
+            try {
+                codificada = Files.readAllBytes(archivo(llave));
+                int[] trayectoria = decodifica(codificada, columnas, renglones);
+                if (trayectoria != null) {
+                    aciertosDisco.incrementAndGet();
+                    guardaEnMemoria(llave, codificada);
+                    return trayectoria;
+                }
+            } catch (IOException e) {
+                // no esta en disco
+            }
+        }
+        fallos.incrementAndGet();
+        return null;
+    }
+
+    /**
+    * Metodo que guarda la trayectoria de la llave en memoria y, si hay, en
+    * disco
+    */
+    public void guarda(String llave, int[] trayectoria, int columnas) {
+        byte[] codificada = codifica(trayectoria, columnas);
+        guardaEnMemoria(llave, codificada);
+        if (directorio == null)
+            return;
+        try {
+            // se escribe aparte y se mueve, para que nadie lea un archivo a medias
+            Path temporal = Files.createTempFile(directorio, llave, ".tmp");
+            Files.write(temporal, codificada);
+            Files.move(temporal, archivo(llave), StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("No se pudo guardar la solucion en el cache: " + e.getMessage());
+        }
+    }
+
+    private synchronized void guardaEnMemoria(String llave, byte[] codificada) {
+        long tamaño = codificada.length + BYTES_POR_ENTRADA;
+        if (tamaño > capacidad)
+            return;
+        byte[] anterior = memoria.put(llave, codificada);
+        if (anterior != null)
+            ocupados -= anterior.length + BYTES_POR_ENTRADA;
+        ocupados += tamaño;
+        Iterator<Map.Entry<String, byte[]>> iterador = memoria.entrySet().iterator();
+        while (ocupados > capacidad) {
+            ocupados -= iterador.next().getValue().length + BYTES_POR_ENTRADA;
+            iterador.remove();
+        }
+    }
+
+    private Path archivo(String llave) {
+        return directorio.resolve(llave + ".ruta");
+    }
+
+    /* Codifica la trayectoria: longitud, columnas, primer cuarto y dos bits
+     * por paso (0 este, 1 norte, 2 oeste, 3 sur), cuatro pasos por byte. */
+    static byte[] codifica(int[] trayectoria, int columnas) {
+        int n = trayectoria.length;
+        ByteBuffer b = ByteBuffer.allocate(12 + (Math.max(n - 1, 0) + 3) / 4);
+        b.putInt(n).putInt(columnas).putInt(n == 0 ? 0 : trayectoria[0]);
+        for (int i = 1; i < n; i++) {
+            int d = trayectoria[i] - trayectoria[i - 1];
+            int paso = d == 1 ? 0 : d == -columnas ? 1 : d == -1 ? 2 : 3;
+            int j = 12 + (i - 1) / 4;
+            b.put(j, (byte) (b.get(j) | paso << (2 * ((i - 1) % 4))));
+        }
+        return b.array();
+    }
+
+    /* Decodifica una trayectoria de un laberinto con las dimensiones dadas;
+     * regresa null si los bytes no tienen el tamaño que dice su longitud, si
+     * se codifico con otras columnas o si algun paso sale de la rejilla. Un
+     * archivo del disco pudo quedar a medias o editarse. */
+    static int[] decodifica(byte[] codificada, int columnas, int renglones) {
+        if (codificada.length < 12)
+            return null;
+        ByteBuffer b = ByteBuffer.wrap(codificada);
+        long cuartos = (long) columnas * renglones;
+        int n = b.getInt();
+        if (n < 0 || n > cuartos || b.getInt() != columnas
+            || codificada.length != 12 + (Math.max(n - 1, 0) + 3) / 4)
+            return null;
+        int[] trayectoria = new int[n];
+        if (n == 0)
+            return trayectoria;
+        int c = b.getInt();
+        if (c < 0 || c >= cuartos)
+            return null;
+        trayectoria[0] = c;
+        for (int i = 1; i < n; i++) {
+            int paso = (codificada[12 + (i - 1) / 4] >> (2 * ((i - 1) % 4))) & 3;
+            int x = c % columnas;
+            if (paso == 0 && x + 1 < columnas)
+                c += 1;
+            else if (paso == 1 && c >= columnas)
+                c -= columnas;
+            else if (paso == 2 && x > 0)
+                c -= 1;
+            else if (paso == 3 && (long) c + columnas < cuartos)
+                c += columnas;
+            else
+                return null;
+            trayectoria[i] = c;
+        }
+        return trayectoria;
+    }
+
+    /**
+    * Regresa el numero de busquedas que encontraron la trayectoria en memoria
+    */
+    public long getAciertosMemoria() {
+        return aciertosMemoria.get();
+    }
+
+    /**
+    * Regresa el numero de busquedas que encontraron la trayectoria en disco
+    */
+    public long getAciertosDisco() {
+        return aciertosDisco.get();
+    }
+
+    /**
+    * Regresa el numero de busquedas que no encontraron la trayectoria
+    */
+    public long getFallos() {
+        return fallos.get();
+    }
+
+    /**
+    * Regresa los bytes que ocupan las trayectorias en memoria
+    */
+    public synchronized long getOcupados() {
+        return ocupados;
+    }
+
+    /**
+    * Regresa los contadores del cache como un objeto JSON en una sola linea
+    */
+    public String toJson() {
+        return "{\"aciertos_memoria\":" + getAciertosMemoria()
+            + ",\"aciertos_disco\":" + getAciertosDisco()
+            + ",\"fallos\":" + getFallos()
+            + ",\"bytes_memoria\":" + getOcupados() + "}";
+    }
+}
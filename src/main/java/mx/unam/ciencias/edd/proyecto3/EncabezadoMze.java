@@ -0,0 +1,162 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Clase que representa el encabezado de un archivo mze.
+ *
+ * Version 1 (legado, 6 bytes): 'M' 'A' 'Z' 'E', columnas, renglones; cada
+ * dimension en un byte, entre 2 y 255.
+ *
+ * Version 2 (15 bytes): 'M' 'A' 'Z' 'E', 0x00, version, columnas y renglones
+ * como enteros de 32 bits big-endian, y un byte de banderas. El 0x00 en el
+ * quinto byte no es una dimension valida en la version 1, asi que distingue
+ * ambos formatos.
+ */
+public class EncabezadoMze {
+
+    /**Version del encabezado de 6 bytes*/
+    public static final int VERSION_LEGADO = 1;
+    /**Version del encabezado con dimensiones de 32 bits*/
+    public static final int VERSION_2 = 2;
+    /**Dimension maxima del encabezado de legado*/
+    public static final int MAXIMO_LEGADO = 255;
+    /**Numero maximo de cuartos que cabe en un arreglo*/
+    public static final long MAXIMO_CUARTOS = Integer.MAX_VALUE - 8;
+
+    private static final int[] MAGIA = {0x4d, 0x41, 0x5a, 0x45};
+
+    private int columnas, renglones, version, banderas;
+
+    /**
+    * Constructor para un encabezado con las dimensiones dadas
+    */
+    public EncabezadoMze(int columnas, int renglones, int version, int banderas) {
+        this.columnas = columnas;
+        this.renglones = renglones;
+        this.version = version;
+        this.banderas = banderas;
+    }
+
+    /**
+    * Regresa la version del encabezado mas pequeña que admite las dimensiones
+    */
+    public static int version(int columnas, int renglones) {
+        return (columnas <= MAXIMO_LEGADO && renglones <= MAXIMO_LEGADO) ? VERSION_LEGADO : VERSION_2;
+    }
+
+    public int getColumnas() { return columnas; }
+
+    public int getRenglones() { return renglones; }
+
+    public int getVersion() { return version; }
+
+    public int getBanderas() { return banderas; }
+
+    /**
+    * Regresa el numero de cuartos que describe el encabezado
+    */
+    public int getCuartos() {
+        return columnas * renglones;
+    }
+
+    /**
+    * Metodo que regresa los bytes del encabezado
+    */
+    public byte[] getBytes() {
+        byte[] e;
+        if (version == VERSION_LEGADO) {
+            e = new byte[6];
+            e[4] = (byte) (columnas & 0xFF);
+            e[5] = (byte) (renglones & 0xFF);
+        } else {
+            e = new byte[15];
+            e[4] = 0;
+            e[5] = (byte) version;
+            escribeEntero(e, 6, columnas);
+            escribeEntero(e, 10, renglones);
+            e[14] = (byte) banderas;
+        }
+        for (int i = 0; i < MAGIA.length; i++)
+            e[i] = (byte) MAGIA[i];
+        return e;
+    }
+
+    /**
+    * Metodo que lee y valida un encabezado de cualquier version
+    */
+    public static EncabezadoMze lee(InputStream in) throws IOException, InvalidMazeException {
+        String[] orden = {"primer", "segundo", "tercer", "cuarto"};
+        for (int i = 0; i < MAGIA.length; i++)
+            if (siguiente(in) != MAGIA[i])
+                throw new InvalidMazeException(String.format("El %s byte debe ser 0x%02x", orden[i], MAGIA[i]));
+
+        int b = siguiente(in);
+        if (b != 0) {
+            int renglones = siguiente(in);
+            return valida(b, renglones, VERSION_LEGADO, 0);
+        }
+        int version = siguiente(in);
+        if (version != VERSION_2)
+            throw new InvalidMazeException("Version de archivo mze no soportada: " + version);
+        int columnas = leeEntero(in);
+        int renglones = leeEntero(in);
+        int banderas = siguiente(in);
+        return valida(columnas, renglones, version, banderas);
+    }
+
+    /**
+    * Metodo que lee y valida un encabezado desde la posicion actual del
+    * buffer; al terminar, la posicion del buffer queda en el primer cuarto
+    */
+    public static EncabezadoMze lee(ByteBuffer buffer) throws InvalidMazeException {
+        try {
+            String[] orden = {"primer", "segundo", "tercer", "cuarto"};
+            for (int i = 0; i < MAGIA.length; i++)
+                if ((buffer.get() & 0xFF) != MAGIA[i])
+                    throw new InvalidMazeException(String.format("El %s byte debe ser 0x%02x", orden[i], MAGIA[i]));
+
+            int b = buffer.get() & 0xFF;
+            if (b != 0)
+                return valida(b, buffer.get() & 0xFF, VERSION_LEGADO, 0);
+            int version = buffer.get() & 0xFF;
+            if (version != VERSION_2)
+                throw new InvalidMazeException("Version de archivo mze no soportada: " + version);
+            int columnas = buffer.getInt();
+            int renglones = buffer.getInt();
+            return valida(columnas, renglones, version, buffer.get() & 0xFF);
+        } catch (BufferUnderflowException e) {
+            throw new InvalidMazeException("El archivo termina antes del fin del encabezado.");
+        }
+    }
+
+    private static EncabezadoMze valida(int columnas, int renglones, int version, int banderas)
+        throws InvalidMazeException {
+        if (columnas < 2 || renglones < 2)
+            throw new InvalidMazeException("Las columnas y renglones deben ser al menos 2.");
+        if ((long) columnas * renglones > MAXIMO_CUARTOS)
+            throw new InvalidMazeException("El laberinto tiene demasiados cuartos.");
+        return new EncabezadoMze(columnas, renglones, version, banderas);
+    }
+
+    private static int siguiente(InputStream in) throws IOException, InvalidMazeException {
+        int b = in.read();
+        if (b == -1)
+            throw new InvalidMazeException("El archivo termina antes del fin del encabezado.");
+        return b;
+    }
+
+    private static int leeEntero(InputStream in) throws IOException, InvalidMazeException {
+        return siguiente(in) << 24 | siguiente(in) << 16 | siguiente(in) << 8 | siguiente(in);
+    }
+
+    private static void escribeEntero(byte[] e, int i, int n) {
+        e[i] = (byte) (n >>> 24);
+        e[i + 1] = (byte) (n >>> 16);
+        e[i + 2] = (byte) (n >>> 8);
+        e[i + 3] = (byte) n;
+    }
+}
@@ -0,0 +1,124 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Clase que escribe un documento SVG directamente a un {@link OutputStream}
+ * en una sola pasada. Usa un solo buffer de bytes y escribe los números sin
+ * crear cadenas, así que la memoria no depende del tamaño del documento.
+ */
+public class EscritorSvg {
+
+    private OutputStream out;
+    private byte[] buffer;
+    private int n;
+    /* Número de bytes ya enviados al OutputStream. */
+    private long escritos;
+
+    /**
+    * Constructor que escribe al flujo dado
+    */
+    public EscritorSvg(OutputStream out) {
+        this.out = out;
+        this.buffer = new byte[1 << 16];
+    }
+
+    /**
+    * Metodo que escribe texto ASCII
+    */
+    public EscritorSvg texto(String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            if (n == buffer.length)
+                vacia();
+            buffer[n++] = (byte) s.charAt(i);
+        }
+        return this;
+    }
+
+    /**
+    * Metodo que escribe un entero en decimal
+    */
+    public EscritorSvg numero(int v) throws IOException {
+        if (buffer.length - n < 11)
+            vacia();
+        if (v < 0) {
+            buffer[n++] = '-';
+            v = -v;
+        }
+        int fin = n;
+        do {
+            buffer[fin++] = (byte) ('0' + v % 10);
+            v /= 10;
+        } while (v > 0);
+        for (int i = n, j = fin - 1; i < j; i++, j--) {
+            byte t = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = t;
+        }
+        n = fin;
+        return this;
+    }
+
+    /**
+    * Metodo que escribe un elemento line con trazo negro
+    */
+    public void linea(int x1, int y1, int x2, int y2) throws IOException {
+        texto("<line x1=\"").numero(x1).texto("\" y1=\"").numero(y1)
+            .texto("\" x2=\"").numero(x2).texto("\" y2=\"").numero(y2)
+            .texto("\" stroke=\"black\"/>");
+    }
+
+    /**
+    * Metodo que escribe un elemento circle relleno del color dado
+    */
+    public void circulo(int cx, int cy, int r, String color) throws IOException {
+        texto("<circle cx=\"").numero(cx).texto("\" cy=\"").numero(cy)
+            .texto("\" r=\"").numero(r).texto("\" fill=\"").texto(color).texto("\"/>");
+    }
+
+    /**
+    * Metodo que escribe un segmento horizontal "Mx yHx2" de un path
+    */
+    public void horizontal(int x1, int y, int x2) throws IOException {
+        texto("M").numero(x1).texto(" ").numero(y).texto("H").numero(x2);
+    }
+
+    /**
+    * Metodo que escribe un segmento vertical "Mx yVy2" de un path
+    */
+    public void vertical(int x, int y1, int y2) throws IOException {
+        texto("M").numero(x).texto(" ").numero(y1).texto("V").numero(y2);
+    }
+
+    /**
+    * Metodo que escribe un punto "x,y " de una polilinea
+    */
+    public void punto(int x, int y) throws IOException {
+        numero(x).texto(",").numero(y).texto(" ");
+    }
+
+    /**
+    * Metodo que envia el buffer al flujo
+    */
+    public void vacia() throws IOException {
+        out.write(buffer, 0, n);
+        escritos += n;
+        n = 0;
+    }
+
+    /**
+    * Metodo que envia el buffer al flujo y vacia el flujo
+    */
+    public void termina() throws IOException {
+        vacia();
+        out.flush();
+    }
+
+    /**
+    * Regresa el numero de bytes escritos hasta ahora
+    */
+    public long getEscritos() {
+        return escritos + n;
+    }
+}
@@ -0,0 +1,230 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Clase que mide cada etapa de la resolución de un laberinto: el tiempo, los
+ * bytes asignados por el hilo y los bytes leídos o escritos, además de los
+ * cuartos expandidos y las veces que se reordenó el montículo en la
+ * búsqueda. Las etapas que se repiten se acumulan.
+ *
+ * Si las estadísticas están inactivas ningún método mide nada ni guarda
+ * nada, así que cuestan una comparación por llamada.
+ */
+public class Estadisticas {
+
+    /**Estadisticas inactivas, para quien no las pidio*/
+    public static final Estadisticas INACTIVAS = new Estadisticas(false);
+
+    /* El bean que sabe cuántos bytes ha asignado cada hilo, o null si la
+     * máquina virtual no lo soporta. */
+    private static final com.sun.management.ThreadMXBean HILOS = beanDeHilos();
+
+    private boolean activas;
+    private long[] nanos, asignados, bytes;
+    private boolean[] medidas;
+    /* El inicio de la etapa en curso. */
+    private long inicioNanos, inicioAsignados;
+    private long expandidos, reordenamientos;
+    private int longitud;
+
+    /**
+    * Constructor para estadisticas activas o inactivas
+    */
+    public Estadisticas(boolean activas) {
+        this.activas = activas;
+        int n = EtapaResolucion.values().length;
+        if (activas) {
+            nanos = new long[n];
+            asignados = new long[n];
+            bytes = new long[n];
+            medidas = new boolean[n];
+        }
+    }
+
+    private static com.sun.management.ThreadMXBean beanDeHilos() {
+        try {
+            java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean hilos = (com.sun.management.ThreadMXBean) bean;
+                if (hilos.isThreadAllocatedMemorySupported() && hilos.isThreadAllocatedMemoryEnabled())
+                    return hilos;
+            }
+        } catch (LinkageError | UnsupportedOperationException e) {
+        }
+        return null;
+    }
+
+    /* Bytes asignados hasta ahora por el hilo actual, o 0 si no se sabe. */
+    private static long asignadosHilo() {
+        return HILOS == null ? 0 : HILOS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+    * Nos dice si las estadisticas estan activas
+    */
+    public boolean estanActivas() {
+        return activas;
+    }
+
+    /**
+    * Metodo que marca el inicio de una etapa; las etapas no se anidan
+    */
+    public void inicia(EtapaResolucion etapa) {
+        if (!activas)
+            return;
+        inicioAsignados = asignadosHilo();
+        inicioNanos = System.nanoTime();
+    }
+
+    /**
+    * Metodo que marca el fin de la etapa iniciada y acumula su tiempo y sus
+    * bytes asignados
+    */
+    public void termina(EtapaResolucion etapa) {
+        if (!activas)
+            return;
+        int i = etapa.ordinal();
+        nanos[i] += System.nanoTime() - inicioNanos;
+        asignados[i] += asignadosHilo() - inicioAsignados;
+        medidas[i] = true;
+    }
+
+    /**
+    * Metodo que suma bytes leidos o escritos a una etapa
+    */
+    public void agregaBytes(EtapaResolucion etapa, long n) {
+        if (activas)
+            bytes[etapa.ordinal()] += n;
+    }
+
+    /**
+    * Metodo que guarda los contadores de la busqueda y la longitud de la
+    * trayectoria
+    */
+    public void setBusqueda(long expandidos, long reordenamientos, int longitud) {
+        if (!activas)
+            return;
+        this.expandidos = expandidos;
+        this.reordenamientos = reordenamientos;
+        this.longitud = longitud;
+    }
+
+    /**
+    * Regresa un flujo que cuenta los bytes escritos como bytes de la etapa;
+    * si las estadisticas estan inactivas regresa el mismo flujo
+    */
+    public OutputStream cuenta(OutputStream out, EtapaResolucion etapa) {
+        if (!activas)
+            return out;
+        int i = etapa.ordinal();
+        return new FilterOutputStream(out) {
+            @Override public void write(int b) throws IOException {
+                out.write(b);
+                bytes[i]++;
+            }
+
+            @Override public void write(byte[] b, int inicio, int n) throws IOException {
+                out.write(b, inicio, n);
+                bytes[i] += n;
+            }
+        };
+    }
+
+    /**
+    * Nos dice si la etapa se midio
+    */
+    public boolean seMidio(EtapaResolucion etapa) {
+        return activas && medidas[etapa.ordinal()];
+    }
+
+    /**
+    * Regresa los nanosegundos de la etapa
+    */
+    public long getNanos(EtapaResolucion etapa) {
+        return activas ? nanos[etapa.ordinal()] : 0;
+    }
+
+    /**
+    * Regresa los bytes asignados por el hilo durante la etapa; 0 si la
+    * maquina virtual no los mide
+    */
+    public long getAsignados(EtapaResolucion etapa) {
+        return activas ? asignados[etapa.ordinal()] : 0;
+    }
+
+    /**
+    * Regresa los bytes leidos o escritos por la etapa
+    */
+    public long getBytes(EtapaResolucion etapa) {
+        return activas ? bytes[etapa.ordinal()] : 0;
+    }
+
+    /**
+    * Regresa los nanosegundos de todas las etapas
+    */
+    public long getNanosTotales() {
+        long total = 0;
+        for (EtapaResolucion etapa : EtapaResolucion.values())
+            total += getNanos(etapa);
+        return total;
+    }
+
+    /**
+    * Regresa el numero de cuartos que expandio la busqueda
+    */
+    public long getExpandidos() {
+        return expandidos;
+    }
+
+    /**
+    * Regresa el numero de veces que la busqueda reordeno un cuarto que ya
+    * estaba en el montículo
+    */
+    public long getReordenamientos() {
+        return reordenamientos;
+    }
+
+    /**
+    * Regresa el numero de cuartos de la trayectoria
+    */
+    public int getLongitud() {
+        return longitud;
+    }
+
+    /**
+    * Regresa las estadisticas como un objeto JSON en una sola linea, con los
+    * datos del laberinto dados y una entrada por cada etapa medida
+    */
+    public String toJson(String modo, AlgoritmoBusqueda busqueda, String formato,
+                         int columnas, int renglones) {
+        StringBuilder json = new StringBuilder("{");
+        json.append("\"modo\":\"").append(modo)
+            .append("\",\"busqueda\":\"").append(busqueda.name().toLowerCase())
+            .append("\",\"formato\":\"").append(formato)
+            .append("\",\"columnas\":").append(columnas)
+            .append(",\"renglones\":").append(renglones)
+            .append(",\"longitud\":").append(longitud)
+            .append(",\"expandidos\":").append(expandidos)
+            .append(",\"reordenamientos\":").append(reordenamientos)
+            .append(",\"total_ns\":").append(getNanosTotales())
+            .append(",\"etapas\":{");
+        boolean primera = true;
+        for (EtapaResolucion etapa : EtapaResolucion.values()) {
+            if (!seMidio(etapa))
+                continue;
+            if (!primera)
+                json.append(',');
+            primera = false;
+            json.append('"').append(etapa.name().toLowerCase()).append("\":{")
+                .append("\"ns\":").append(getNanos(etapa))
+                .append(",\"asignados\":").append(getAsignados(etapa))
+                .append(",\"bytes\":").append(getBytes(etapa))
+                .append('}');
+        }
+        return json.append("}}").toString();
+    }
+}
@@ -0,0 +1,20 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+/**
+ * Enumeración para las etapas de la resolución de un laberinto que mide
+ * {@link Estadisticas}.
+ */
+public enum EtapaResolucion {
+    /** Lectura y validación del archivo mze. */
+    LECTURA,
+    /** Construcción de los cuartos del laberinto. */
+    CUARTOS,
+    /** Revisión de que las paredes de cuartos vecinos coincidan. */
+    CONSISTENCIA,
+    /** Construcción de los vértices y aristas de la gráfica de cuartos. */
+    GRAFICA,
+    /** Búsqueda de la trayectoria de peso mínimo. */
+    BUSQUEDA,
+    /** Dibujo de la solución en SVG o PNG. */
+    DIBUJO;
+}
@@ -0,0 +1,39 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+/**
+ * Clase para fabricar generadores de laberintos.
+ */
+public class FabricaGeneradores {
+
+    /* Constructor privado para evitar instanciación. */
+    private FabricaGeneradores() {}
+
+    /**
+     * Regresa una instancia de {@link GeneradorMaze}.
+     * @param algoritmo el algoritmo de generación que se desea.
+     * @return una instancia de {@link GeneradorMaze}.
+     * @throws IllegalArgumentException si recibe un identificador no
+     *         reconocido.
+     */
+    public static GeneradorMaze generador(AlgoritmoMaze algoritmo) {
+        switch (algoritmo) {
+        case CAMINO:
+            return (m, r) -> m.conectaEntradaySalida();
+        case BACKTRACKER:
+            return Generadores::backtracker;
+        case KRUSKAL:
+            return Generadores::kruskal;
+        case PRIM:
+            return Generadores::prim;
+        case WILSON:
+            return Generadores::wilson;
+        case ELLER:
+            return Generadores::eller;
+        case ARBOL_BINARIO:
+            return Generadores::arbolBinario;
+        case SIDEWINDER:
+            return Generadores::sidewinder;
+        default: throw new IllegalArgumentException("Algoritmo inválido");
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+import java.util.Random;
+
+/**
+ * Interfaz para los algoritmos que abren las paredes de un laberinto. Cuando
+ * se llama, todos los cuartos tienen sus cuatro paredes y ya se abrieron la
+ * entrada y la salida.
+ */
+@FunctionalInterface
+public interface GeneradorMaze {
+
+    /**
+     * Abre paredes del laberinto de manera que exista un camino entre la
+     * entrada y la salida.
+     * @param maze el laberinto a generar.
+     * @param random la fuente de aleatoriedad.
+     */
+    public void genera(Maze maze, Random random);
+}
@@ -0,0 +1,206 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+import mx.unam.ciencias.edd.ConjuntosDisjuntos;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Clase que genera un laberinto perfecto por bloques en paralelo. El
+ * laberinto se divide en bloques cuadrados que se generan de manera
+ * independiente con DFS aleatorio en un {@link ForkJoinPool}, escribiendo
+ * directamente los bytes de los cuartos. Después se unen los bloques con
+ * Kruskal sobre la rejilla de bloques: con {@link ConjuntosDisjuntos} se abre
+ * una sola pared en cada frontera del árbol de bloques, así que el resultado
+ * sigue siendo perfecto y siempre hay camino entre la entrada y la salida.
+ *
+ * Cada bloque usa su propio {@link Random} con una semilla derivada de la
+ * semilla del laberinto y del número de bloque, y la unión es secuencial, así
+ * que una semilla produce el mismo laberinto con cualquier número de hilos.
+ */
+public class GeneradorPorBloques {
+
+    /**Lado por omision de un bloque en cuartos*/
+    public static final int TAMAÑO_BLOQUE = 256;
+
+    private int columnas, renglones;
+    private long semilla;
+    private int hilos;
+    private int tamaño;
+    /* Numero de bloques por renglon y por columna. */
+    private int bloquesX, bloquesY;
+    private byte[] cuartos;
+
+    /**
+    * Constructor para un laberinto con las dimensiones y la semilla dadas,
+    * generado con el numero de hilos dado
+    */
+    public GeneradorPorBloques(int columnas, int renglones, long semilla, int hilos) {
+        this(columnas, renglones, semilla, hilos, TAMAÑO_BLOQUE);
+    }
+
+    /**
+    * Constructor que ademas recibe el lado de cada bloque en cuartos
+    */
+    public GeneradorPorBloques(int columnas, int renglones, long semilla, int hilos, int tamaño) {
+        if (hilos < 1 || tamaño < 1)
+            throw new IllegalArgumentException("Los hilos y el tamaño de bloque deben ser positivos.");
+        this.columnas = columnas;
+        this.renglones = renglones;
+        this.semilla = semilla;
+        this.hilos = hilos;
+        this.tamaño = tamaño;
+        this.bloquesX = (columnas + tamaño - 1) / tamaño;
+        this.bloquesY = (renglones + tamaño - 1) / tamaño;
+    }
+
+    /**
+    * Metodo que genera el laberinto y regresa sus cuartos renglon por
+    * renglon, en el mismo formato que {@link Maze#getMazeByte}
+    */
+    public byte[] genera() {
+        cuartos = new byte[columnas * renglones];
+        ForkJoinPool pool = new ForkJoinPool(hilos);
+        try {
+            pool.invoke(new Bloques(0, bloquesX * bloquesY));
+        } finally {
+            pool.shutdown();
+        }
+        Random random = new Random(semilla);
+        une(random);
+        int[] io = Maze.eligeEntradaySalida(columnas, renglones, random);
+        abreExterior(io[0], io[1]);
+        abreExterior(io[2], io[3]);
+        return cuartos;
+    }
+
+    /* Tarea que genera los bloques [inicio, fin), partiendo el rango a la
+     * mitad hasta que queda un solo bloque. */
+    private class Bloques extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private int inicio, fin;
+
+        private Bloques(int inicio, int fin) {
+            this.inicio = inicio;
+            this.fin = fin;
+        }
+
+        @Override protected void compute() {
+            if (fin - inicio == 1) {
+                generaBloque(inicio);
+                return;
+            }
+            int mitad = (inicio + fin) >>> 1;
+            invokeAll(new Bloques(inicio, mitad), new Bloques(mitad, fin));
+        }
+    }
+
+    /* Semilla del bloque b: SplitMix64 sobre la semilla del laberinto y el
+     * numero de bloque, para que bloques vecinos no tengan semillas
+     * correlacionadas. */
+    static long semillaBloque(long semilla, int b) {
+        long z = semilla + (b + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /* Genera el bloque b con DFS aleatorio; sólo escribe los cuartos del
+     * bloque, así que los bloques no comparten datos. */
+    private void generaBloque(int b) {
+        Random random = new Random(semillaBloque(semilla, b));
+        int x0 = (b % bloquesX) * tamaño, y0 = (b / bloquesX) * tamaño;
+        int ancho = Math.min(tamaño, columnas - x0), alto = Math.min(tamaño, renglones - y0);
+        for (int y = y0; y < y0 + alto; y++)
+            for (int x = x0; x < x0 + ancho; x++)
+                cuartos[y * columnas + x] = (byte) (random.nextInt(16) << 4 | 0x0F);
+
+        int n = ancho * alto;
+        boolean[] visitados = new boolean[n];
+        int[] pila = new int[n];
+        int[] opciones = new int[4];
+        int tope = 0;
+        int inicio = random.nextInt(n);
+        visitados[inicio] = true;
+        pila[tope++] = inicio;
+        while (tope > 0) {
+            int c = pila[tope - 1];
+            int x = c % ancho, y = c / ancho;
+            int k = 0;
+            if (x + 1 < ancho && !visitados[c + 1]) opciones[k++] = Maze.ESTE;
+            if (y > 0 && !visitados[c - ancho]) opciones[k++] = Maze.NORTE;
+            if (x > 0 && !visitados[c - 1]) opciones[k++] = Maze.OESTE;
+            if (y + 1 < alto && !visitados[c + ancho]) opciones[k++] = Maze.SUR;
+            if (k == 0) {
+                tope--;
+                continue;
+            }
+            int d = opciones[random.nextInt(k)];
+            int v = d == Maze.ESTE ? c + 1 : d == Maze.NORTE ? c - ancho : d == Maze.OESTE ? c - 1 : c + ancho;
+            abre(x0 + x, y0 + y, d);
+            visitados[v] = true;
+            pila[tope++] = v;
+        }
+    }
+
+    /* Une los bloques: baraja las fronteras entre bloques vecinos y abre una
+     * pared al azar en cada frontera que separe dos conjuntos distintos. */
+    private void une(Random random) {
+        int n = bloquesX * bloquesY;
+        // frontera 2b es el ESTE del bloque b, 2b+1 es su SUR
+        int[] fronteras = new int[2 * n];
+        int m = 0;
+        for (int b = 0; b < n; b++) {
+            if (b % bloquesX + 1 < bloquesX) fronteras[m++] = 2 * b;
+            if (b + bloquesX < n) fronteras[m++] = 2 * b + 1;
+        }
+        for (int i = m - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int aux = fronteras[j];
+            fronteras[j] = fronteras[i];
+            fronteras[i] = aux;
+        }
+        ConjuntosDisjuntos conjuntos = new ConjuntosDisjuntos(n);
+        for (int i = 0; i < m && conjuntos.getConjuntos() > 1; i++) {
+            int b = fronteras[i] >> 1;
+            boolean este = (fronteras[i] & 1) == 0;
+            if (!conjuntos.une(b, este ? b + 1 : b + bloquesX))
+                continue;
+            int x0 = (b % bloquesX) * tamaño, y0 = (b / bloquesX) * tamaño;
+            if (este) {
+                int alto = Math.min(tamaño, renglones - y0);
+                abre(x0 + tamaño - 1, y0 + random.nextInt(alto), Maze.ESTE);
+            } else {
+                int ancho = Math.min(tamaño, columnas - x0);
+                abre(x0 + random.nextInt(ancho), y0 + tamaño - 1, Maze.SUR);
+            }
+        }
+    }
+
+    /* Abre la pared en la direccion dada del cuarto (x, y) y la opuesta de
+     * su vecino. */
+    private void abre(int x, int y, int direccion) {
+        int c = y * columnas + x;
+        cuartos[c] &= ~direccion;
+        switch (direccion) {
+            case Maze.ESTE:
+                cuartos[c + 1] &= ~Maze.OESTE;
+                break;
+            case Maze.NORTE:
+                cuartos[c - columnas] &= ~Maze.SUR;
+                break;
+            case Maze.OESTE:
+                cuartos[c - 1] &= ~Maze.ESTE;
+                break;
+            default:
+                cuartos[c + columnas] &= ~Maze.NORTE;
+        }
+    }
+
+    /* Abre la pared exterior del cuarto (x, y) del borde. */
+    private void abreExterior(int x, int y) {
+        cuartos[y * columnas + x] &= ~Maze.paredExterior(x, y, columnas, renglones);
+    }
+}
@@ -0,0 +1,56 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+
+/**
+ * Clase que genera un laberinto perfecto con el algoritmo de Eller y escribe
+ * cada renglon en cuanto termina, con el mismo formato mze que lee {@link
+ * ResolverMaze}. Sólo guarda el estado de un renglon, así que la memoria es
+ * O(columnas) sin importar el numero de renglones.
+ */
+public class GeneradorPorRenglones {
+
+    private int columnas, renglones;
+    private Random random;
+
+    /**
+    * Constructor para un laberinto con las dimensiones dadas
+    */
+    public GeneradorPorRenglones(int columnas, int renglones, Random random) {
+        this.columnas = columnas;
+        this.renglones = renglones;
+        this.random = random;
+    }
+
+    /**
+    * Metodo que escribe el encabezado y todos los renglones del laberinto
+    */
+    public void genera(OutputStream out, int version) throws IOException {
+        out.write(new EncabezadoMze(columnas, renglones, version, 0).getBytes());
+
+        int[] io = Maze.eligeEntradaySalida(columnas, renglones, random);
+        RenglonEller renglon = new RenglonEller(columnas);
+        byte[] cuartos = new byte[columnas];
+        // si el cuarto de arriba abrio su pared SUR
+        boolean[] arriba = new boolean[columnas];
+
+        for (int y = 0; y < renglones; y++) {
+            renglon.genera(random, y == renglones - 1);
+            for (int x = 0; x < columnas; x++) {
+                int wall = 0x0F;
+                if (renglon.abreEste(x)) wall &= ~Maze.ESTE;
+                if (arriba[x]) wall &= ~Maze.NORTE;
+                if (x > 0 && renglon.abreEste(x - 1)) wall &= ~Maze.OESTE;
+                if (renglon.abreSur(x)) wall &= ~Maze.SUR;
+                if ((x == io[0] && y == io[1]) || (x == io[2] && y == io[3]))
+                    wall &= ~Maze.paredExterior(x, y, columnas, renglones);
+                cuartos[x] = (byte) (random.nextInt(16) << 4 | wall);
+                arriba[x] = renglon.abreSur(x);
+            }
+            out.write(cuartos);
+        }
+        out.flush();
+    }
+}
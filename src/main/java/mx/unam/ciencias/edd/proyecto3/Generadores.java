@@ -0,0 +1,261 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+import mx.unam.ciencias.edd.ConjuntosDisjuntos;
+import java.util.Random;
+
+/**
+ * Clase para métodos estáticos con algoritmos que generan laberintos
+ * perfectos (todos los cuartos conectados y sin ciclos). Todos trabajan con
+ * índices de cuarto <code>y*columnas+x</code> y arreglos de primitivos, sin
+ * crear objetos por cuarto.
+ */
+public class Generadores {
+
+    /**Numero maximo de cuartos para {@link #kruskal}: cada cuarto ocupa dos
+     * lugares en el arreglo de paredes.*/
+    public static final long MAXIMO_KRUSKAL = EncabezadoMze.MAXIMO_CUARTOS / 2;
+
+    /* Las direcciones en el orden en que se prueban. */
+    private static final int[] DIRECCIONES = {Maze.ESTE, Maze.NORTE, Maze.OESTE, Maze.SUR};
+
+    /* Constructor privado para evitar instanciación. */
+    private Generadores() {}
+
+    /* Regresa el índice del vecino en la dirección dada, o -1 si queda
+     * fuera del laberinto. */
+    private static int vecino(int c, int direccion, int columnas, int renglones) {
+        int x = c % columnas;
+        switch (direccion) {
+            case Maze.ESTE:
+                return x + 1 < columnas ? c + 1 : -1;
+            case Maze.NORTE:
+                return c >= columnas ? c - columnas : -1;
+            case Maze.OESTE:
+                return x > 0 ? c - 1 : -1;
+            default:
+                return c + columnas < columnas * renglones ? c + columnas : -1;
+        }
+    }
+
+    /* Abre la pared entre el cuarto c y su vecino en la dirección dada. */
+    private static void abre(Maze maze, int c, int direccion) {
+        maze.abrePared(c % maze.getColumnas(), c / maze.getColumnas(), direccion);
+    }
+
+    /**
+     * DFS aleatorio con retroceso sobre todos los cuartos, con una pila de
+     * enteros.
+     * @param maze el laberinto a generar.
+     * @param random la fuente de aleatoriedad.
+     */
+    public static void backtracker(Maze maze, Random random) {
+        int columnas = maze.getColumnas(), renglones = maze.getRenglones();
+        boolean[] visitados = new boolean[columnas * renglones];
+        int[] pila = new int[columnas * renglones];
+        int[] opciones = new int[4];
+        int tope = 0;
+        int inicio = random.nextInt(columnas * renglones);
+        visitados[inicio] = true;
+        pila[tope++] = inicio;
+        while (tope > 0) {
+            int c = pila[tope - 1];
+            int n = 0;
+            for (int d : DIRECCIONES) {
+                int v = vecino(c, d, columnas, renglones);
+                if (v != -1 && !visitados[v])
+                    opciones[n++] = d;
+            }
+            if (n == 0) {
+                tope--;
+                continue;
+            }
+            int d = opciones[random.nextInt(n)];
+            int v = vecino(c, d, columnas, renglones);
+            abre(maze, c, d);
+            visitados[v] = true;
+            pila[tope++] = v;
+        }
+    }
+
+    /**
+     * Kruskal aleatorio: baraja todas las paredes interiores y abre cada una
+     * que separe dos conjuntos distintos.
+     * @param maze el laberinto a generar.
+     * @param random la fuente de aleatoriedad.
+     * @throws IllegalArgumentException si el laberinto tiene mas de
+     *         {@link #MAXIMO_KRUSKAL} cuartos.
+     */
+    public static void kruskal(Maze maze, Random random) {
+        int columnas = maze.getColumnas(), renglones = maze.getRenglones();
+        if ((long) columnas * renglones > MAXIMO_KRUSKAL)
+            throw new IllegalArgumentException("Kruskal admite a lo mas " + MAXIMO_KRUSKAL + " cuartos.");
+        int n = columnas * renglones;
+        // pared 2c es el ESTE del cuarto c, 2c+1 es su SUR
+        int[] paredes = new int[2 * n];
+        int m = 0;
+        for (int c = 0; c < n; c++) {
+            if (c % columnas + 1 < columnas) paredes[m++] = 2 * c;
+            if (c + columnas < n) paredes[m++] = 2 * c + 1;
+        }
+        for (int i = m - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int aux = paredes[j];
+            paredes[j] = paredes[i];
+            paredes[i] = aux;
+        }
+        ConjuntosDisjuntos conjuntos = new ConjuntosDisjuntos(n);
+        int faltan = n - 1;
+        for (int i = 0; i < m && faltan > 0; i++) {
+            int c = paredes[i] >> 1;
+            boolean este = (paredes[i] & 1) == 0;
+            if (conjuntos.une(c, este ? c + 1 : c + columnas)) {
+                abre(maze, c, este ? Maze.ESTE : Maze.SUR);
+                faltan--;
+            }
+        }
+    }
+
+    /**
+     * Prim aleatorio: crece el laberinto desde un cuarto, conectando un cuarto
+     * aleatorio de la frontera con un vecino aleatorio ya visitado.
+     * @param maze el laberinto a generar.
+     * @param random la fuente de aleatoriedad.
+     */
+    public static void prim(Maze maze, Random random) {
+        int columnas = maze.getColumnas(), renglones = maze.getRenglones();
+        int n = columnas * renglones;
+        // 0: fuera, 1: frontera, 2: dentro
+        byte[] estado = new byte[n];
+        int[] frontera = new int[n];
+        int[] opciones = new int[4];
+        int f = 0;
+        int inicio = random.nextInt(n);
+        estado[inicio] = 2;
+        for (int d : DIRECCIONES) {
+            int v = vecino(inicio, d, columnas, renglones);
+            if (v != -1) {
+                estado[v] = 1;
+                frontera[f++] = v;
+            }
+        }
+        while (f > 0) {
+            int i = random.nextInt(f);
+            int c = frontera[i];
+            frontera[i] = frontera[--f];
+            int k = 0;
+            for (int d : DIRECCIONES) {
+                int v = vecino(c, d, columnas, renglones);
+                if (v != -1 && estado[v] == 2)
+                    opciones[k++] = d;
+            }
+            abre(maze, c, opciones[random.nextInt(k)]);
+            estado[c] = 2;
+            for (int d : DIRECCIONES) {
+                int v = vecino(c, d, columnas, renglones);
+                if (v != -1 && estado[v] == 0) {
+                    estado[v] = 1;
+                    frontera[f++] = v;
+                }
+            }
+        }
+    }
+
+    /**
+     * Wilson: caminatas aleatorias desde cada cuarto fuera del laberinto hasta
+     * tocarlo; sólo se guarda la última salida de cada cuarto, lo que borra
+     * los ciclos de la caminata.
+     * @param maze el laberinto a generar.
+     * @param random la fuente de aleatoriedad.
+     */
+    public static void wilson(Maze maze, Random random) {
+        int columnas = maze.getColumnas(), renglones = maze.getRenglones();
+        int n = columnas * renglones;
+        boolean[] dentro = new boolean[n];
+        byte[] salida = new byte[n];
+        dentro[random.nextInt(n)] = true;
+        for (int inicio = 0; inicio < n; inicio++) {
+            if (dentro[inicio])
+                continue;
+            int c = inicio;
+            while (!dentro[c]) {
+                int d, v;
+                do {
+                    d = DIRECCIONES[random.nextInt(4)];
+                    v = vecino(c, d, columnas, renglones);
+                } while (v == -1);
+                salida[c] = (byte) d;
+                c = v;
+            }
+            c = inicio;
+            while (!dentro[c]) {
+                dentro[c] = true;
+                abre(maze, c, salida[c]);
+                c = vecino(c, salida[c], columnas, renglones);
+            }
+        }
+    }
+
+    /**
+     * Eller: genera el laberinto renglón por renglón, con un conjunto por
+     * cuarto del renglón actual.
+     * @param maze el laberinto a generar.
+     * @param random la fuente de aleatoriedad.
+     */
+    public static void eller(Maze maze, Random random) {
+        int columnas = maze.getColumnas(), renglones = maze.getRenglones();
+        RenglonEller renglon = new RenglonEller(columnas);
+        for (int y = 0; y < renglones; y++) {
+            renglon.genera(random, y == renglones - 1);
+            for (int x = 0; x < columnas; x++) {
+                if (renglon.abreEste(x))
+                    maze.abrePared(x, y, Maze.ESTE);
+                if (renglon.abreSur(x))
+                    maze.abrePared(x, y, Maze.SUR);
+            }
+        }
+    }
+
+    /**
+     * Árbol binario: cada cuarto abre su pared norte o su pared oeste; el
+     * primer renglón sólo abre al oeste y la primera columna sólo al norte.
+     * @param maze el laberinto a generar.
+     * @param random la fuente de aleatoriedad.
+     */
+    public static void arbolBinario(Maze maze, Random random) {
+        int columnas = maze.getColumnas(), renglones = maze.getRenglones();
+        for (int y = 0; y < renglones; y++) {
+            for (int x = 0; x < columnas; x++) {
+                if (y == 0 && x == 0)
+                    continue;
+                if (y == 0 || (x > 0 && random.nextBoolean()))
+                    maze.abrePared(x, y, Maze.OESTE);
+                else
+                    maze.abrePared(x, y, Maze.NORTE);
+            }
+        }
+    }
+
+    /**
+     * Sidewinder: el primer renglón es un pasillo; en los demás se forman
+     * corridas al este y cada corrida se cierra abriendo al norte uno de sus
+     * cuartos.
+     * @param maze el laberinto a generar.
+     * @param random la fuente de aleatoriedad.
+     */
+    public static void sidewinder(Maze maze, Random random) {
+        int columnas = maze.getColumnas(), renglones = maze.getRenglones();
+        for (int x = 0; x + 1 < columnas; x++)
+            maze.abrePared(x, 0, Maze.ESTE);
+        for (int y = 1; y < renglones; y++) {
+            int inicio = 0;
+            for (int x = 0; x < columnas; x++) {
+                if (x + 1 < columnas && random.nextBoolean()) {
+                    maze.abrePared(x, y, Maze.ESTE);
+                } else {
+                    maze.abrePared(inicio + random.nextInt(x - inicio + 1), y, Maze.NORTE);
+                    inicio = x + 1;
+                }
+            }
+        }
+    }
+}
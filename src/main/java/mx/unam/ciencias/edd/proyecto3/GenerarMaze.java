@@ -1,37 +1,72 @@
 package mx.unam.ciencias.edd.proyecto3;
 
 import mx.unam.ciencias.edd.*;
-import java.io.PrintStream;
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.Random;
 
 /**
- * Clase para generar un archivo que contiene un laberinto valido.
+ * Clase para generar un archivo que contiene un laberinto valido. Cada
+ * instancia guarda las banderas de un solo trabajo, así que varias
+ * instancias pueden generar laberintos a la vez.
  */
 public class GenerarMaze {
 
     /**Bandera permite generar un laberinto*/
-    private static boolean g = false;
+    private boolean g = false;
     /**Bandera permite saber las columnas*/
-    private static boolean w = false;
+    private boolean w = false;
     /**Bandera permite saber los renglones*/
-    private static boolean h = false;
+    private boolean h = false;
     /**Bandera opcional permite bindar una semilla*/
-    private static boolean s = false;
+    private boolean s = false;
+    /**Bandera opcional permite elegir la version del archivo mze*/
+    private boolean v = false;
+    /**Bandera opcional permite elegir el algoritmo*/
+    private boolean a = false;
+    /**Bandera opcional permite generar renglon por renglon*/
+    private boolean f = false;
+    /**Bandera opcional permite generar por bloques en paralelo*/
+    private boolean p = false;
+    /**Archivo de salida; null para la salida estandar*/
+    private String salida;
 
     /**Numero de columnas*/
-    private static int columnas;
+    private int columnas;
     /**Numero de renglones*/
-    private static int renglones;
+    private int renglones;
     /**Valor de la semilla*/
-    private static int semilla;
+    private int semilla;
+    /**Version del encabezado del archivo mze*/
+    private int version;
+    /**Numero de hilos para generar por bloques*/
+    private int hilos;
+    /**Algoritmo para generar el laberinto*/
+    private AlgoritmoMaze algoritmo = AlgoritmoMaze.CAMINO;
 
     /**Metood para verificar la existencia de banderas*/
-    private static boolean checkBanderas(String[] entrada) {
+    private boolean checkBanderas(String[] entrada) {
         for (String b : entrada) {
             if (b.equals("-g")) g = true;
             if (b.equals("-w")) w = true;
             if (b.equals("-h")) h = true;
             if (b.equals("-s")) s = true;
+            if (b.equals("-v")) v = true;
+            if (b.equals("-a")) a = true;
+            if (b.equals("-f")) f = true;
+            if (b.equals("-p")) p = true;
         }
         return g && w && h;
     }
@@ -42,11 +77,20 @@ public class GenerarMaze {
         System.err.println(" '-g' obligatoria para generar un laberinto.");
         System.err.println(" '-w' obligatoria para indicar el número de columnas del laberinto.");
         System.err.println(" '-h' obligatoria para indicar el número de renglones del laberinto.");
-        System.err.println(" '-s' opcional si deseas agregar una semilla para generar el laberinto.\n");
+        System.err.println(" '-s' opcional si deseas agregar una semilla para generar el laberinto.");
+        System.err.println(" '-v' opcional para elegir la version del archivo (1: hasta 255x255, 2: sin ese limite).");
+        System.err.println(" '-a' opcional para elegir el algoritmo: camino (por omision), backtracker, kruskal,");
+        System.err.println("      prim, wilson, eller, arbol_binario o sidewinder.");
+        System.err.println(" '-f' opcional para generar con Eller y escribir renglon por renglon, con memoria");
+        System.err.println("      proporcional a las columnas.");
+        System.err.println(" '-p hilos' opcional para generar con backtracker por bloques de " + GeneradorPorBloques.TAMAÑO_BLOQUE
+            + "x" + GeneradorPorBloques.TAMAÑO_BLOQUE + " en paralelo;");
+        System.err.println("      con la misma semilla el laberinto no depende del numero de hilos.");
+        System.err.println(" '-o' opcional para escribir el laberinto en el archivo dado en lugar de la salida estandar.\n");
     }
 
     /**Metodo para obtener los valores del laberinto*/
-    public static boolean getValues(String[] entrada) {
+    public boolean getValues(String[] entrada) {
         boolean esValido=true;
         if (checkBanderas(entrada)) {
             for (int i = 0; i < entrada.length; i++) {
@@ -73,9 +117,9 @@ public class GenerarMaze {
                         if (i + 1 < entrada.length && !entrada[i + 1].startsWith("-")) {
                             try {
                                 columnas = Integer.parseInt(entrada[i + 1]);
-                                if (columnas < 2 || columnas > 255) {
+                                if (columnas < 2) {
                                     esValido &=false;
-                                    System.err.println("El valor de las columnas debe variar entre 2 y 255.");
+                                    System.err.println("El valor de las columnas debe ser al menos 2.");
                                 }
                             } catch (NumberFormatException e) {
                                 esValido &=false;
@@ -91,9 +135,9 @@ public class GenerarMaze {
                         if (i + 1 < entrada.length && !entrada[i + 1].startsWith("-")) {
                             try {
                                 renglones = Integer.parseInt(entrada[i + 1]);
-                                if (renglones < 2 || renglones > 255) {
+                                if (renglones < 2) {
                                     esValido &=false;
-                                    System.err.println("El valor de los renglones debe variar entre 2 y 255.");
+                                    System.err.println("El valor de los renglones debe ser al menos 2.");
                                 }
                             } catch (NumberFormatException e) {
                                 esValido &=false;
@@ -105,8 +149,90 @@ public class GenerarMaze {
                             System.err.println("Asegúrate de incluir un valor para los renglones.");
                         }
                         break;
+                    case "-a":
+                        if (i + 1 < entrada.length && !entrada[i + 1].startsWith("-")) {
+                            try {
+                                algoritmo = AlgoritmoMaze.valueOf(entrada[i + 1].toUpperCase());
+                            } catch (IllegalArgumentException e) {
+                                esValido &=false;
+                                System.err.println("Algoritmo desconocido: " + entrada[i + 1]);
+                            }
+                            i++;
+                        } else {
+                            esValido &=false;
+                            System.err.println("Asegúrate de incluir un valor para el algoritmo.");
+                        }
+                        break;
+                    case "-p":
+                        if (i + 1 < entrada.length && !entrada[i + 1].startsWith("-")) {
+                            try {
+                                hilos = Integer.parseInt(entrada[i + 1]);
+                                if (hilos < 1) {
+                                    esValido &=false;
+                                    System.err.println("El numero de hilos debe ser al menos 1.");
+                                }
+                            } catch (NumberFormatException e) {
+                                esValido &=false;
+                                System.err.println("El numero de hilos debe ser un número.");
+                            }
+                            i++;
+                        } else {
+                            esValido &=false;
+                            System.err.println("Asegúrate de incluir un valor para el numero de hilos.");
+                        }
+                        break;
+                    case "-o":
+                        if (i + 1 < entrada.length && !entrada[i + 1].startsWith("-")) {
+                            salida = entrada[i + 1];
+                            i++;
+                        } else {
+                            esValido &=false;
+                            System.err.println("Asegúrate de incluir un archivo de salida.");
+                        }
+                        break;
+                    case "-v":
+                        if (i + 1 < entrada.length && !entrada[i + 1].startsWith("-")) {
+                            try {
+                                version = Integer.parseInt(entrada[i + 1]);
+                                if (version != EncabezadoMze.VERSION_LEGADO && version != EncabezadoMze.VERSION_2) {
+                                    esValido &=false;
+                                    System.err.println("La version debe ser 1 o 2.");
+                                }
+                            } catch (NumberFormatException e) {
+                                esValido &=false;
+                                System.err.println("La version debe ser un número.");
+                            }
+                            i++;
+                        } else {
+                            esValido &=false;
+                            System.err.println("Asegúrate de incluir un valor para la version.");
+                        }
+                        break;
                 }
             }
+            if (f && a && algoritmo != AlgoritmoMaze.ELLER) {
+                esValido &=false;
+                System.err.println("La bandera '-f' solo funciona con el algoritmo eller.");
+            }
+            if (p && (f || (a && algoritmo != AlgoritmoMaze.BACKTRACKER))) {
+                esValido &=false;
+                System.err.println("La bandera '-p' solo funciona con el algoritmo backtracker y sin '-f'.");
+            }
+            if (esValido && (long) columnas * renglones > EncabezadoMze.MAXIMO_CUARTOS) {
+                esValido &=false;
+                System.err.println("El laberinto tiene demasiados cuartos.");
+            } else if (esValido && algoritmo == AlgoritmoMaze.KRUSKAL
+                       && (long) columnas * renglones > Generadores.MAXIMO_KRUSKAL) {
+                esValido &=false;
+                System.err.println("El algoritmo kruskal admite a lo mas " + Generadores.MAXIMO_KRUSKAL + " cuartos.");
+            }
+            if (esValido && !v) {
+                version = EncabezadoMze.version(columnas, renglones);
+            } else if (esValido && version == EncabezadoMze.VERSION_LEGADO
+                       && EncabezadoMze.version(columnas, renglones) != EncabezadoMze.VERSION_LEGADO) {
+                esValido &=false;
+                System.err.println("La version 1 solo admite columnas y renglones entre 2 y 255.");
+            }
         } else {
             esValido&=false;
             printUsage();
@@ -115,36 +241,71 @@ public class GenerarMaze {
     }
 
     /**Metodo para generar el archivo mze que contiene un laberinto valido*/
-    public static void generarMze() {
+    public void generarMze() {
         Random random = s ? new Random(semilla) : new Random();
-        Maze maze = new Maze(columnas, renglones, random);
-        maze.iniciarMaze();
-        byte[] mze = new byte[6 + columnas * renglones];
-        byte[] mazeByte = maze.getMazeByte();
-        int i = 0;
-        //agregamos los bytes indispensables M A Z E
-        mze[i] = (byte)(0x4d);
-        mze[++i] = (byte)(0x41);
-        mze[++i] = (byte)(0x5a);
-        mze[++i] = (byte)(0x45);
-
-        //agregamos las columnas y renglones en byte 
-        mze[++i] = (byte)(columnas & 0xFF);
-        mze[++i] = (byte)(renglones & 0xFF);
-        
-        for(byte h : mazeByte){
-            mze[++i] = h;
+        try {
+            if (f) {
+                try (OutputStream out = new BufferedOutputStream(abrirSalida(), 1 << 16)) {
+                    new GeneradorPorRenglones(columnas, renglones, random).genera(out, version);
+                }
+                return;
+            }
+            byte[] cuartos;
+            if (p) {
+                cuartos = new GeneradorPorBloques(columnas, renglones, s ? semilla : random.nextLong(), hilos).genera();
+            } else {
+                Maze maze = new Maze(columnas, renglones, random);
+                maze.iniciarMaze(FabricaGeneradores.generador(algoritmo));
+                cuartos = maze.getMazeByte();
+            }
+            //el encabezado M A Z E con las columnas y renglones, y los cuartos
+            //(deberan ser columnas x renglones bytes en total)
+            ByteBuffer[] mze = {
+                ByteBuffer.wrap(new EncabezadoMze(columnas, renglones, version, 0).getBytes()),
+                ByteBuffer.wrap(cuartos)
+            };
+            try (WritableByteChannel canal = salida != null
+                     ? FileChannel.open(Paths.get(salida), StandardOpenOption.CREATE,
+                                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)
+                     : Channels.newChannel(salidaEstandar())) {
+                if (canal instanceof GatheringByteChannel) {
+                    // una sola escritura con el encabezado y los cuartos; se
+                    // repite hasta que se escribe el ultimo buffer
+                    GatheringByteChannel archivo = (GatheringByteChannel) canal;
+                    while (mze[mze.length - 1].hasRemaining())
+                        archivo.write(mze);
+                } else {
+                    for (ByteBuffer b : mze)
+                        while (b.hasRemaining())
+                            canal.write(b);
+                }
+            }
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
         }
+    }
+
+    /**Abre el archivo de salida, o la salida estandar si no se dio '-o'*/
+    private OutputStream abrirSalida() throws IOException {
+        if (salida == null)
+            return salidaEstandar();
+        return Files.newOutputStream(Paths.get(salida));
+    }
 
-        //imprimimos contenido para el archivo mze (deberan ser columnas x renglones bytes en total)
-        try{
-            PrintStream out=new PrintStream(System.out);
-            for (byte b : mze) {
-                out.write(b);
+    /**
+    * Regresa un flujo a la salida estandar que al cerrarse solo se vacia,
+    * para no cerrar el descriptor 1 del proceso: en un lote o en el servidor
+    * la maquina virtual sigue escribiendo en él
+    */
+    private static OutputStream salidaEstandar() {
+        return new FilterOutputStream(new FileOutputStream(FileDescriptor.out)) {
+            @Override public void write(byte[] b, int inicio, int longitud) throws IOException {
+                out.write(b, inicio, longitud);
             }
-            out.close();
-        } catch (Exception ex) {
-            throw new RuntimeException(ex);
-        }  
+
+            @Override public void close() throws IOException {
+                flush();
+            }
+        };
     }
 }
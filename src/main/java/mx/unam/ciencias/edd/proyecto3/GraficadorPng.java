@@ -0,0 +1,267 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Clase que dibuja un laberinto y su solucion como una imagen PNG, leyendo
+ * directamente los bytes del laberinto. La imagen se genera y se comprime
+ * renglon de pixeles por renglon de pixeles, así que la memoria es de unos
+ * cuantos renglones más la trayectoria, sin importar el tamaño del
+ * laberinto.
+ *
+ * Cada cuarto mide <code>tamaño</code> pixeles por lado y las paredes son
+ * lineas de un pixel sobre los bordes, de modo que la imagen mide
+ * <code>columnas*tamaño+1</code> por <code>renglones*tamaño+1</code>.
+ */
+public class GraficadorPng {
+
+    /**Tamaño por omision de un cuarto en pixeles*/
+    public static final int TAMAÑO_DEFAULT = 4;
+    /**Tamaño minimo de un cuarto en pixeles*/
+    public static final int TAMAÑO_MINIMO = 2;
+    /**Tamaño maximo de un cuarto en pixeles*/
+    public static final int TAMAÑO_MAXIMO = 64;
+
+    private static final byte[] FIRMA = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+
+    /* Indices de la paleta. */
+    private static final int FONDO = 0, PARED = 1, CAMINO = 2, ENTRADA = 3, SALIDA = 4;
+    private static final byte[] PALETA = {
+        (byte) 0xff, (byte) 0xff, (byte) 0xff,
+        0x00, 0x00, 0x00,
+        0x00, 0x00, (byte) 0xff,
+        0x00, (byte) 0x80, 0x00,
+        (byte) 0xff, 0x00, 0x00
+    };
+
+    /* Bits extra de la mascara de un cuarto de la trayectoria. */
+    private static final int ES_ENTRADA = 0x10, ES_SALIDA = 0x20;
+
+    private ByteBuffer mazeByte;
+    private int columnas, renglones;
+    private int tamaño, centro;
+    private int ancho, alto;
+
+    /* Cuartos de la trayectoria ordenados por indice: indice << 8 | mascara,
+     * donde la mascara tiene las direcciones por las que pasa el camino. */
+    private long[] camino;
+    private int siguienteCamino;
+    /* Mascara del camino para cada cuarto del renglon actual. */
+    private byte[] mascara;
+
+    private OutputStream out;
+    private Deflater deflater;
+    private CRC32 crc;
+    private byte[] comprimido;
+
+    /**
+    * Constructor para dibujar el laberinto dado en bytes, renglon por
+    * renglon desde el indice 0 del buffer, con cuartos del tamaño dado
+    */
+    public GraficadorPng(ByteBuffer mazeByte, int columnas, int renglones, int tamaño) {
+        if ((long) columnas * tamaño + 1 > Integer.MAX_VALUE
+            || (long) renglones * tamaño + 1 > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("La imagen es demasiado grande para el tamaño de cuarto dado.");
+        this.mazeByte = mazeByte;
+        this.columnas = columnas;
+        this.renglones = renglones;
+        this.tamaño = tamaño;
+        this.centro = tamaño / 2;
+        this.ancho = columnas * tamaño + 1;
+        this.alto = renglones * tamaño + 1;
+    }
+
+    /**
+    * Metodo que escribe el PNG del laberinto con la trayectoria dada como
+    * indices de cuartos (y*columnas+x), como la que regresa {@link
+    * GridSolver#resolver}; si la trayectoria es vacia sólo dibuja el
+    * laberinto
+    */
+    public void graficar(int[] trayectoria, OutputStream out) throws IOException {
+        this.out = out;
+        ordenaCamino(trayectoria);
+        mascara = new byte[columnas];
+        crc = new CRC32();
+        comprimido = new byte[1 << 16];
+        deflater = new Deflater(Deflater.BEST_SPEED);
+
+        out.write(FIRMA);
+        byte[] ihdr = new byte[13];
+        escribeEntero(ihdr, 0, ancho);
+        escribeEntero(ihdr, 4, alto);
+        ihdr[8] = 4;  // bits por pixel
+        ihdr[9] = 3;  // color indexado
+        escribeChunk("IHDR", ihdr, ihdr.length);
+        escribeChunk("PLTE", PALETA, PALETA.length);
+
+        // un byte de filtro y dos pixeles por byte
+        byte[] renglon = new byte[1 + (ancho + 1) / 2];
+        for (int y = 0; y < renglones; y++) {
+            cargaMascara(y);
+            Arrays.fill(renglon, (byte) 0);
+            pintaBorde(renglon, y);
+            comprime(renglon);
+            // los renglones interiores antes del centro son iguales entre
+            // si, y también los que van después; sólo se pintan una vez
+            int anterior = 2;
+            for (int j = 1; j < tamaño; j++) {
+                int clase = Integer.compare(j, centro);
+                if (clase != anterior) {
+                    Arrays.fill(renglon, (byte) 0);
+                    pintaInterior(renglon, y, j);
+                    anterior = clase;
+                }
+                comprime(renglon);
+            }
+        }
+        Arrays.fill(mascara, (byte) 0);
+        Arrays.fill(renglon, (byte) 0);
+        pintaBorde(renglon, renglones);
+        comprime(renglon);
+
+        deflater.finish();
+        while (!deflater.finished())
+            escribeComprimido();
+        deflater.end();
+        escribeChunk("IEND", comprimido, 0);
+        out.flush();
+        if (trayectoria.length == 0)
+            System.err.println("No hay solucion");
+        else
+            System.err.println("Se creo la solucion del laberinto con exito.");
+    }
+
+    /* Construye el arreglo ordenado de cuartos del camino con sus mascaras. */
+    private void ordenaCamino(int[] trayectoria) {
+        int n = trayectoria.length;
+        camino = new long[n];
+        for (int i = 0; i < n; i++) {
+            int c = trayectoria[i];
+            int m = 0;
+            if (i > 0) m |= direccion(c, trayectoria[i - 1]);
+            if (i + 1 < n) m |= direccion(c, trayectoria[i + 1]);
+            if (i == 0) m |= ES_ENTRADA;
+            if (i == n - 1) m |= ES_SALIDA;
+            camino[i] = (long) c << 8 | m;
+        }
+        Arrays.sort(camino);
+        siguienteCamino = 0;
+    }
+
+    private int direccion(int desde, int hacia) {
+        if (hacia == desde + 1) return Maze.ESTE;
+        if (hacia == desde - 1) return Maze.OESTE;
+        if (hacia == desde - columnas) return Maze.NORTE;
+        return Maze.SUR;
+    }
+
+    /* Llena la mascara del renglon y con los cuartos del camino. */
+    private void cargaMascara(int y) {
+        Arrays.fill(mascara, (byte) 0);
+        long fin = (long) (y + 1) * columnas;
+        while (siguienteCamino < camino.length && (camino[siguienteCamino] >> 8) < fin) {
+            long c = camino[siguienteCamino++];
+            mascara[(int) ((c >> 8) % columnas)] = (byte) c;
+        }
+    }
+
+    /* Pared horizontal sobre el cuarto (x, y): NORTE de y o SUR de y-1. */
+    private boolean horizontal(int x, int y) {
+        if (x < 0 || x >= columnas)
+            return false;
+        return (y < renglones && (mazeByte.get(y * columnas + x) & Maze.NORTE) != 0)
+            || (y > 0 && (mazeByte.get((y - 1) * columnas + x) & Maze.SUR) != 0);
+    }
+
+    /* Pared vertical a la izquierda del cuarto (x, y): OESTE de x o ESTE de x-1. */
+    private boolean vertical(int x, int y) {
+        if (y < 0 || y >= renglones)
+            return false;
+        return (x < columnas && (mazeByte.get(y * columnas + x) & Maze.OESTE) != 0)
+            || (x > 0 && (mazeByte.get(y * columnas + x - 1) & Maze.ESTE) != 0);
+    }
+
+    /* Renglon de pixeles sobre el borde superior del renglon de cuartos y. */
+    private void pintaBorde(byte[] renglon, int y) {
+        for (int x = 0; x <= columnas; x++) {
+            int px = x * tamaño;
+            if (horizontal(x - 1, y) || horizontal(x, y) || vertical(x, y - 1) || vertical(x, y))
+                pinta(renglon, px, PARED);
+            if (x == columnas)
+                break;
+            if (horizontal(x, y)) {
+                for (int i = 1; i < tamaño; i++)
+                    pinta(renglon, px + i, PARED);
+            } else if ((mascara[x] & Maze.NORTE) != 0) {
+                pinta(renglon, px + centro, CAMINO);
+            }
+        }
+    }
+
+    /* Renglon de pixeles j (0 < j < tamaño) dentro del renglon de cuartos y. */
+    private void pintaInterior(byte[] renglon, int y, int j) {
+        for (int x = 0; x <= columnas; x++) {
+            int px = x * tamaño;
+            if (vertical(x, y))
+                pinta(renglon, px, PARED);
+            else if (j == centro && x > 0 && (mascara[x - 1] & Maze.ESTE) != 0)
+                pinta(renglon, px, CAMINO);
+            if (x == columnas)
+                break;
+            int m = mascara[x];
+            if (m == 0)
+                continue;
+            int fondo = (m & ES_ENTRADA) != 0 ? ENTRADA : (m & ES_SALIDA) != 0 ? SALIDA : FONDO;
+            for (int i = 1; i < tamaño; i++) {
+                boolean enCamino = j == centro
+                    ? (i == centro || (i > centro && (m & Maze.ESTE) != 0) || (i < centro && (m & Maze.OESTE) != 0))
+                    : i == centro && ((j < centro && (m & Maze.NORTE) != 0) || (j > centro && (m & Maze.SUR) != 0));
+                pinta(renglon, px + i, enCamino ? CAMINO : fondo);
+            }
+        }
+    }
+
+    /* Pinta el pixel px del renglon; el byte 0 es el filtro. */
+    private static void pinta(byte[] renglon, int px, int color) {
+        renglon[1 + (px >> 1)] |= (px & 1) == 0 ? color << 4 : color;
+    }
+
+    private void comprime(byte[] renglon) throws IOException {
+        deflater.setInput(renglon);
+        while (!deflater.needsInput())
+            escribeComprimido();
+    }
+
+    private void escribeComprimido() throws IOException {
+        int n = deflater.deflate(comprimido);
+        if (n > 0)
+            escribeChunk("IDAT", comprimido, n);
+    }
+
+    private void escribeChunk(String tipo, byte[] datos, int n) throws IOException {
+        byte[] encabezado = new byte[8];
+        escribeEntero(encabezado, 0, n);
+        for (int i = 0; i < 4; i++)
+            encabezado[4 + i] = (byte) tipo.charAt(i);
+        crc.reset();
+        crc.update(encabezado, 4, 4);
+        crc.update(datos, 0, n);
+        byte[] fin = new byte[4];
+        escribeEntero(fin, 0, (int) crc.getValue());
+        out.write(encabezado);
+        out.write(datos, 0, n);
+        out.write(fin);
+    }
+
+    private static void escribeEntero(byte[] b, int i, int n) {
+        b[i] = (byte) (n >>> 24);
+        b[i + 1] = (byte) (n >>> 16);
+        b[i + 2] = (byte) (n >>> 8);
+        b[i + 3] = (byte) n;
+    }
+}
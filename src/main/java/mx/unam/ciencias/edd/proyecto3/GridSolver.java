@@ -0,0 +1,454 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Clase que resuelve un laberinto directamente sobre sus bytes, sin construir
+ * cuartos ni una {@link mx.unam.ciencias.edd.Grafica}. Cada cuarto se
+ * identifica por su índice <code>y*columnas+x</code> y los vecinos se obtienen
+ * de los bits de pared (ESTE/NORTE/OESTE/SUR).
+ */
+public class GridSolver {
+
+    private ByteBuffer mazeByte;
+    private int columnas, renglones;
+
+    private int s1, s2, f1, f2;
+
+    /* Peso por paso de la heurística de A*; 0 en dijkstra. */
+    private int escala;
+    /* Columna y renglón del destino, para la heurística. */
+    private int xDestino, yDestino;
+    /* Número de cuartos expandidos por la última búsqueda. */
+    private int expandidos;
+    /* Número de veces que la última búsqueda subió un cuarto que ya estaba
+     * en el montículo. */
+    private int reordenamientos;
+    /* Número de problemas del laberinto que reportó la última búsqueda. */
+    private int advertencias;
+    /* Donde se miden las etapas de la resolución. */
+    private Estadisticas estadisticas = Estadisticas.INACTIVAS;
+
+    /* Una búsqueda sobre los cuartos: distancias y predecesores indexados
+     * por cuarto, y un montículo mínimo indexado de cuartos con la posición de
+     * cada cuarto en él (-1 si no está). En A* la distancia de cada cuarto
+     * incluye la estimación al destino. Las distancias son long: con
+     * {@link EncabezadoMze#MAXIMO_CUARTOS} cuartos de peso hasta 31 una
+     * trayectoria puede pasar de Integer.MAX_VALUE. */
+    private static class Frente {
+
+        private long[] distancia;
+        private int[] predecesor;
+        private int[] monticulo;
+        private int[] posicion;
+        private int elementos;
+        private int reordenamientos;
+
+        /* Crea la búsqueda para n cuartos, empezando en el origen con la
+         * distancia dada. */
+        private Frente(int n, int origen, long d) {
+            distancia = new long[n];
+            predecesor = new int[n];
+            posicion = new int[n];
+            monticulo = new int[n];
+            for (int i = 0; i < n; i++) {
+                distancia[i] = Long.MAX_VALUE;
+                posicion[i] = -1;
+            }
+            distancia[origen] = d;
+            predecesor[origen] = -1;
+            agrega(origen);
+        }
+
+        private boolean esVacio() {
+            return elementos == 0;
+        }
+
+        /* La distancia del cuarto en la raíz del montículo. */
+        private long minimo() {
+            return distancia[monticulo[0]];
+        }
+
+        /* d es la nueva distancia de v pasando por u. */
+        private void relaja(int u, int v, long d) {
+            if (d >= distancia[v])
+                return;
+            distancia[v] = d;
+            predecesor[v] = u;
+            if (posicion[v] == -1) {
+                agrega(v);
+            } else {
+                acomodaArriba(posicion[v]);
+                reordenamientos++;
+            }
+        }
+
+        private void agrega(int v) {
+            monticulo[elementos] = v;
+            posicion[v] = elementos;
+            acomodaArriba(elementos++);
+        }
+
+        private int elimina() {
+            int raiz = monticulo[0];
+            monticulo[0] = monticulo[--elementos];
+            posicion[monticulo[0]] = 0;
+            posicion[raiz] = -1;
+            acomodaAbajo(0);
+            return raiz;
+        }
+
+        private void acomodaArriba(int i) {
+            int v = monticulo[i];
+            while (i > 0) {
+                int p = (i - 1) / 2;
+                if (distancia[monticulo[p]] <= distancia[v])
+                    break;
+                monticulo[i] = monticulo[p];
+                posicion[monticulo[i]] = i;
+                i = p;
+            }
+            monticulo[i] = v;
+            posicion[v] = i;
+        }
+
+        private void acomodaAbajo(int i) {
+            if (elementos == 0)
+                return;
+            int v = monticulo[i];
+            while (2 * i + 1 < elementos) {
+                int h = 2 * i + 1;
+                if (h + 1 < elementos && distancia[monticulo[h + 1]] < distancia[monticulo[h]])
+                    h++;
+                if (distancia[v] <= distancia[monticulo[h]])
+                    break;
+                monticulo[i] = monticulo[h];
+                posicion[monticulo[i]] = i;
+                i = h;
+            }
+            monticulo[i] = v;
+            posicion[v] = i;
+        }
+    }
+
+    /**
+     * Constructor para resolver un laberinto dado en bytes, renglón por
+     * renglón.
+     */
+    public GridSolver(byte[] mazeByte, int columnas, int renglones) {
+        this(ByteBuffer.wrap(mazeByte), columnas, renglones);
+    }
+
+    /**
+     * Constructor para resolver un laberinto dado en un buffer de bytes,
+     * renglón por renglón, desde el índice 0 del buffer. El buffer puede ser
+     * una vista de un archivo mapeado en memoria; no se copia.
+     */
+    public GridSolver(ByteBuffer mazeByte, int columnas, int renglones) {
+        this.mazeByte = mazeByte;
+        this.columnas = columnas;
+        this.renglones = renglones;
+    }
+
+    /**
+     * Metodo que regresa la trayectoria de peso minimo entre la entrada y la
+     * salida como indices de cuartos (y*columnas+x), empezando en la entrada.
+     * Si el laberinto es invalido o no hay solucion regresa un arreglo vacio.
+     * El peso de cruzar entre dos cuartos es el mismo que asigna {@link
+     * Maze}: 1 + 2*puntaje del cuarto que esta al oeste o al norte.
+     */
+    public int[] resolver() {
+        return resolver(AlgoritmoBusqueda.DIJKSTRA);
+    }
+
+    /**
+     * Metodo que regresa la misma trayectoria de peso minimo que {@link
+     * #resolver}, pero buscando con A*: la heuristica es la distancia
+     * Manhattan a la salida multiplicada por el peso minimo de un cuarto, que
+     * nunca sobreestima porque cada paso cuesta al menos ese peso.
+     */
+    public int[] resolverAEstrella() {
+        return resolver(AlgoritmoBusqueda.AESTRELLA);
+    }
+
+    /**
+     * Metodo que regresa la misma trayectoria de peso minimo que {@link
+     * #resolver}, pero con dijkstra bidireccional: una busqueda crece desde la
+     * entrada y otra desde la salida hasta que se encuentran.
+     */
+    public int[] resolverBidireccional() {
+        return resolver(AlgoritmoBusqueda.BIDIRECCIONAL);
+    }
+
+    /**
+     * Regresa el numero de cuartos que expandio la ultima busqueda.
+     */
+    public int getExpandidos() { return expandidos; }
+
+    /**
+     * Regresa el numero de veces que la ultima busqueda reordeno un cuarto que
+     * ya estaba en el montículo.
+     */
+    public int getReordenamientos() { return reordenamientos; }
+
+    /**
+     * Regresa el numero de problemas del laberinto (puertas de mas,
+     * inconsistencias, falta de entrada o salida) que la ultima busqueda
+     * reporto en la salida de errores.
+     */
+    public int getAdvertencias() { return advertencias; }
+
+    /**
+     * Metodo que define donde se miden las etapas de las busquedas: la
+     * revision de consistencia y la busqueda por separado.
+     */
+    public void setEstadisticas(Estadisticas estadisticas) {
+        this.estadisticas = estadisticas;
+    }
+
+    /**
+     * Metodo que regresa la trayectoria de peso minimo buscando con el
+     * algoritmo dado.
+     */
+    public int[] resolver(AlgoritmoBusqueda busqueda) {
+        advertencias = 0;
+        asignarIo();
+        if (s1 == -1 || s2 == -1) {
+            advertencias++;
+            System.err.println("No hay entrada ni salida.");
+            System.err.println("Laberinto invalido: No se pudo recorrer la grafica ya que no se contruyo un laberinto valido.");
+            return new int[0];
+        }
+        estadisticas.inicia(EtapaResolucion.CONSISTENCIA);
+        boolean consistente = verificarConsistencia();
+        estadisticas.termina(EtapaResolucion.CONSISTENCIA);
+        if (!consistente)
+            return new int[0];
+        estadisticas.inicia(EtapaResolucion.BUSQUEDA);
+        escala = busqueda == AlgoritmoBusqueda.AESTRELLA ? pesoMinimo() : 0;
+        xDestino = s2;
+        yDestino = f2;
+        int[] trayectoria = busqueda == AlgoritmoBusqueda.BIDIRECCIONAL
+            ? bidireccional(f1 * columnas + s1, f2 * columnas + s2)
+            : dijkstra(f1 * columnas + s1, f2 * columnas + s2);
+        estadisticas.termina(EtapaResolucion.BUSQUEDA);
+        return trayectoria;
+    }
+
+    /**
+     * Regresa la columna de la entrada encontrada por {@link #resolver}.
+     */
+    public int getS1() { return s1; }
+
+    /**
+     * Regresa el renglon de la entrada encontrada por {@link #resolver}.
+     */
+    public int getF1() { return f1; }
+
+    /**
+     * Regresa la columna de la salida encontrada por {@link #resolver}.
+     */
+    public int getS2() { return s2; }
+
+    /**
+     * Regresa el renglon de la salida encontrada por {@link #resolver}.
+     */
+    public int getF2() { return f2; }
+
+    private int pared(int i) {
+        return mazeByte.get(i) & 0x0F;
+    }
+
+    private int peso(int i) {
+        return 1 + 2 * ((mazeByte.get(i) & 0xF0) >> 4);
+    }
+
+    /* El menor peso de cruzar desde un cuarto: 1 + 2*puntaje minimo. */
+    private int pesoMinimo() {
+        int minimo = 0x0F;
+        int n = columnas * renglones;
+        for (int i = 0; i < n && minimo > 0; i++)
+            minimo = Math.min(minimo, (mazeByte.get(i) & 0xF0) >> 4);
+        return 1 + 2 * minimo;
+    }
+
+    /* Distancia estimada del cuarto i a la salida. */
+    private long estimacion(int i) {
+        if (escala == 0)
+            return 0;
+        return (long) escala * (Math.abs(i % columnas - xDestino) + Math.abs(i / columnas - yDestino));
+    }
+
+    /* Encuentra entrada y salida con el mismo orden de recorrido que Maze. */
+    private void asignarIo() {
+        s1 = -1; f1 = -1; s2 = -1; f2 = -1;
+        int i = 0;
+        for (int y = 0; y < renglones; y++) {
+            for (int x = 0; x < columnas; x++, i++) {
+                int wall = pared(i);
+                String lado;
+                if (y == 0 && (wall & Maze.NORTE) == 0)
+                    lado = "Norte";
+                else if (x == 0 && (wall & Maze.OESTE) == 0)
+                    lado = "Oeste";
+                else if (y == renglones - 1 && (wall & Maze.SUR) == 0)
+                    lado = "Sur";
+                else if (x == columnas - 1 && (wall & Maze.ESTE) == 0)
+                    lado = "Este";
+                else
+                    continue;
+                if (s1 == -1) {
+                    s1 = x; f1 = y;
+                } else if (s2 == -1) {
+                    s2 = x; f2 = y;
+                } else {
+                    advertencias++;
+                    System.err.println("Laberinto inválido: más de una entrada o salida encontrada al " + lado + ".");
+                }
+            }
+        }
+    }
+
+    /* Reporta como Maze: cada pared abierta de un cuarto que su vecino tiene
+     * cerrada, recorriendo los cuartos en orden y en cada uno ESTE, NORTE,
+     * OESTE y SUR. */
+    private boolean verificarConsistencia() {
+        int antes = advertencias;
+        int i = 0;
+        for (int y = 0; y < renglones; y++) {
+            for (int x = 0; x < columnas; x++, i++) {
+                int wall = pared(i);
+                if ((wall & Maze.ESTE) == 0 && x + 1 < columnas && (pared(i + 1) & Maze.OESTE) != 0)
+                    inconsistencia(x, y, 0);
+                if ((wall & Maze.NORTE) == 0 && y > 0 && (pared(i - columnas) & Maze.SUR) != 0)
+                    inconsistencia(x, y, 1);
+                if ((wall & Maze.OESTE) == 0 && x > 0 && (pared(i - 1) & Maze.ESTE) != 0)
+                    inconsistencia(x, y, 2);
+                if ((wall & Maze.SUR) == 0 && y + 1 < renglones && (pared(i + columnas) & Maze.NORTE) != 0)
+                    inconsistencia(x, y, 3);
+            }
+        }
+        return advertencias == antes;
+    }
+
+    private void inconsistencia(int x, int y, int orden) {
+        advertencias++;
+        System.err.println(Maze.inconsistencia(x, y, orden));
+    }
+
+    /* Guarda en vecinos los cuartos a los que se puede pasar desde u y
+     * regresa cuantos son. */
+    private int vecinos(int u, int[] vecinos) {
+        int wall = pared(u);
+        int x = u % columnas;
+        int k = 0;
+        if ((wall & Maze.ESTE) == 0 && x + 1 < columnas)
+            vecinos[k++] = u + 1;
+        if ((wall & Maze.NORTE) == 0 && u >= columnas)
+            vecinos[k++] = u - columnas;
+        if ((wall & Maze.OESTE) == 0 && x > 0)
+            vecinos[k++] = u - 1;
+        if ((wall & Maze.SUR) == 0 && u + columnas < columnas * renglones)
+            vecinos[k++] = u + columnas;
+        return k;
+    }
+
+    /* El peso de cruzar entre dos cuartos vecinos es el del que esta al oeste
+     * o al norte, que es el de menor indice. */
+    private int peso(int u, int v) {
+        return peso(Math.min(u, v));
+    }
+
+    private int[] dijkstra(int origen, int destino) {
+        Frente frente = new Frente(columnas * renglones, origen, estimacion(origen));
+        int[] vecinos = new int[4];
+        expandidos = 0;
+        reordenamientos = 0;
+
+        while (!frente.esVacio()) {
+            int u = frente.elimina();
+            expandidos++;
+            if (u == destino)
+                break;
+            // distancia real desde el origen
+            long d = frente.distancia[u] - estimacion(u);
+            int k = vecinos(u, vecinos);
+            for (int i = 0; i < k; i++) {
+                int v = vecinos[i];
+                frente.relaja(u, v, d + peso(u, v) + estimacion(v));
+            }
+        }
+
+        reordenamientos = frente.reordenamientos;
+        if (frente.distancia[destino] == Long.MAX_VALUE)
+            return new int[0];
+
+        int longitud = 1;
+        for (int v = destino; v != origen; v = frente.predecesor[v])
+            longitud++;
+        int[] trayectoria = new int[longitud];
+        for (int v = destino; longitud > 0; v = frente.predecesor[v])
+            trayectoria[--longitud] = v;
+        return trayectoria;
+    }
+
+    /* Dijkstra desde la entrada y desde la salida a la vez, expandiendo
+     * siempre la busqueda con el minimo menor. Cada par de cuartos vecinos
+     * alcanzados por busquedas distintas da una trayectoria candidata; se
+     * termina cuando la suma de los dos minimos ya no puede mejorar a la mejor
+     * candidata. */
+    private int[] bidireccional(int origen, int destino) {
+        int n = columnas * renglones;
+        expandidos = 0;
+        reordenamientos = 0;
+        if (origen == destino)
+            return new int[] {origen};
+        Frente ida = new Frente(n, origen, 0);
+        Frente vuelta = new Frente(n, destino, 0);
+        int[] vecinos = new int[4];
+
+        // la mejor trayectoria pasa de encuentroIda a encuentroVuelta
+        long mejor = Long.MAX_VALUE;
+        int encuentroIda = -1, encuentroVuelta = -1;
+
+        while (!ida.esVacio() && !vuelta.esVacio()) {
+            if (ida.minimo() + vuelta.minimo() >= mejor)
+                break;
+            boolean haciaAdelante = ida.minimo() <= vuelta.minimo();
+            Frente frente = haciaAdelante ? ida : vuelta;
+            Frente otro = haciaAdelante ? vuelta : ida;
+            int u = frente.elimina();
+            expandidos++;
+            long d = frente.distancia[u];
+            int k = vecinos(u, vecinos);
+            for (int i = 0; i < k; i++) {
+                int v = vecinos[i];
+                long dv = d + peso(u, v);
+                frente.relaja(u, v, dv);
+                if (otro.distancia[v] != Long.MAX_VALUE && dv + otro.distancia[v] < mejor) {
+                    mejor = dv + otro.distancia[v];
+                    encuentroIda = haciaAdelante ? u : v;
+                    encuentroVuelta = haciaAdelante ? v : u;
+                }
+            }
+        }
+
+        reordenamientos = ida.reordenamientos + vuelta.reordenamientos;
+        if (encuentroIda == -1)
+            return new int[0];
+
+        int longitudIda = 0, longitud = 0;
+        for (int v = encuentroIda; v != -1; v = ida.predecesor[v])
+            longitudIda++;
+        for (int v = encuentroVuelta; v != -1; v = vuelta.predecesor[v])
+            longitud++;
+        int[] trayectoria = new int[longitudIda + longitud];
+        int i = longitudIda;
+        for (int v = encuentroIda; v != -1; v = ida.predecesor[v])
+            trayectoria[--i] = v;
+        i = longitudIda;
+        for (int v = encuentroVuelta; v != -1; v = vuelta.predecesor[v])
+            trayectoria[i++] = v;
+        return trayectoria;
+    }
+}
@@ -0,0 +1,90 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Clase para un histograma de latencias que pueden registrar varios hilos a
+ * la vez sin candados. La cubeta <i>i</i> cuenta las latencias de menos de
+ * 2<sup><i>i</i></sup> microsegundos y al menos la mitad de eso, así que los
+ * percentiles tienen un error de a lo más el doble y el histograma ocupa 64
+ * contadores sin importar cuántas latencias se registren.
+ */
+public class HistogramaLatencias {
+
+    private AtomicLongArray cubetas = new AtomicLongArray(64);
+    private AtomicLong total = new AtomicLong();
+    private AtomicLong maximo = new AtomicLong();
+
+    /**
+    * Metodo que registra una latencia en nanosegundos
+    */
+    public void registra(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        cubetas.incrementAndGet(64 - Long.numberOfLeadingZeros(micros));
+        total.incrementAndGet();
+        maximo.accumulateAndGet(micros, Math::max);
+    }
+
+    /**
+    * Regresa el numero de latencias registradas
+    */
+    public long getTotal() {
+        return total.get();
+    }
+
+    /**
+    * Regresa la latencia maxima en microsegundos
+    */
+    public long getMaximo() {
+        return maximo.get();
+    }
+
+    /**
+    * Regresa una cota superior en microsegundos del percentil dado, entre 0
+    * y 100; 0 si no hay latencias
+    */
+    public long percentil(double p) {
+        long n = total.get();
+        if (n == 0)
+            return 0;
+        long objetivo = Math.max(1, (long) Math.ceil(n * p / 100));
+        long acumulado = 0;
+        for (int i = 0; i < 64; i++) {
+            acumulado += cubetas.get(i);
+            if (acumulado >= objetivo)
+                return Math.min(limite(i), maximo.get());
+        }
+        return maximo.get();
+    }
+
+    /* El limite superior (exclusivo) en microsegundos de la cubeta i. */
+    private static long limite(int i) {
+        return i >= 63 ? Long.MAX_VALUE : 1L << i;
+    }
+
+    /**
+    * Regresa el histograma como un objeto JSON en una sola linea, con los
+    * percentiles 50, 90 y 99 y las cubetas no vacias
+    */
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{");
+        json.append("\"total\":").append(getTotal())
+            .append(",\"p50_us\":").append(percentil(50))
+            .append(",\"p90_us\":").append(percentil(90))
+            .append(",\"p99_us\":").append(percentil(99))
+            .append(",\"max_us\":").append(getMaximo())
+            .append(",\"cubetas\":[");
+        boolean primera = true;
+        for (int i = 0; i < 64; i++) {
+            long n = cubetas.get(i);
+            if (n == 0)
+                continue;
+            if (!primera)
+                json.append(',');
+            primera = false;
+            json.append("{\"hasta_us\":").append(limite(i)).append(",\"n\":").append(n).append('}');
+        }
+        return json.append("]}").toString();
+    }
+}
@@ -0,0 +1,290 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Clase para generar o resolver muchos laberintos en una sola ejecucion. Los
+ * trabajos corren en un grupo fijo de hilos; cada uno usa su propia
+ * instancia de {@link GenerarMaze} o {@link ResolverMaze} con las mismas
+ * banderas, así que no comparten estado.
+ *
+ * Para resolver, '-l ruta' (se puede repetir) da un archivo mze o un
+ * directorio con archivos mze; la solucion de cada uno se escribe junto a él
+ * con extension svg o png. Para generar, '-n cuantos' genera los laberintos
+ * con semillas consecutivas a partir de '-s' (1 por omision) en el
+ * directorio de '-d'. Al final se imprime en la salida estandar una linea
+ * por laberinto con su tiempo en milisegundos. Con '-c' o '-k' los trabajos
+ * de resolucion comparten un {@link CacheSoluciones}.
+ */
+public class Lote {
+
+    /**Rutas de los laberintos a resolver*/
+    private List<Path> rutas = new ArrayList<>();
+    /**Numero de laberintos a generar; 0 si el lote es para resolver*/
+    private int cuantos;
+    /**Semilla del primer laberinto a generar*/
+    private int semilla = 1;
+    /**Directorio para los laberintos generados*/
+    private Path directorio = Paths.get(".");
+    /**Numero de hilos del grupo de trabajo*/
+    private int hilos = Runtime.getRuntime().availableProcessors();
+    /**Banderas que se pasan a cada trabajo*/
+    private List<String> banderas = new ArrayList<>();
+    /**Si el lote genera laberintos*/
+    private boolean generar;
+    /**Directorio del cache de trayectorias; null para no usar disco*/
+    private Path directorioCache;
+    /**Limite en bytes del cache en memoria; -1 si no se pidio cache*/
+    private long capacidadCache = -1;
+    /**Cache de trayectorias compartido por todos los trabajos*/
+    private CacheSoluciones cache;
+
+    /**
+    * Nos dice si los argumentos piden un lote, con '-l' o '-n'
+    */
+    public static boolean esLote(String[] entrada) {
+        for (String b : entrada)
+            if (b.equals("-l") || b.equals("-n"))
+                return true;
+        return false;
+    }
+
+    /**Imprime el uso correcto del lote*/
+    private static void printUsage() {
+        System.err.println("\nPara procesar un lote de laberintos:");
+        System.err.println(" '-l ruta' archivo mze o directorio con archivos mze a resolver; se puede repetir.");
+        System.err.println(" '-n cuantos' con '-g', genera esa cantidad de laberintos con semillas consecutivas");
+        System.err.println("      a partir de '-s' (1 por omision).");
+        System.err.println(" '-d directorio' directorio para los laberintos generados (por omision el actual).");
+        System.err.println(" '-j hilos' numero de trabajos a la vez (por omision el numero de procesadores).");
+        System.err.println(" '-c directorio' y '-k megabytes' al resolver, comparten entre los trabajos un cache de");
+        System.err.println("      trayectorias en disco y en memoria (" + (CacheSoluciones.CAPACIDAD_DEFAULT >> 20)
+            + " MB por omision); laberintos repetidos no se vuelven a buscar.");
+        System.err.println(" Las demas banderas se usan igual que para un solo laberinto.\n");
+    }
+
+    /**Metodo para obtener las banderas del lote*/
+    public boolean getValues(String[] entrada) {
+        boolean esValido = true;
+        for (int i = 0; i < entrada.length; i++) {
+            String valor = i + 1 < entrada.length && !entrada[i + 1].startsWith("-") ? entrada[i + 1] : null;
+            switch (entrada[i]) {
+                case "-l":
+                case "-d":
+                case "-c":
+                    if (valor == null) {
+                        esValido &= false;
+                        System.err.println("Asegúrate de incluir una ruta para '" + entrada[i] + "'.");
+                        break;
+                    }
+                    if (entrada[i].equals("-l"))
+                        rutas.add(Paths.get(valor));
+                    else if (entrada[i].equals("-d"))
+                        directorio = Paths.get(valor);
+                    else
+                        directorioCache = Paths.get(valor);
+                    i++;
+                    break;
+                case "-n":
+                case "-s":
+                case "-j":
+                case "-k":
+                    int n = 0;
+                    try {
+                        n = valor == null ? 0 : Integer.parseInt(valor);
+                    } catch (NumberFormatException e) {
+                    }
+                    if (n <= 0) {
+                        esValido &= false;
+                        System.err.println("El valor de '" + entrada[i] + "' debe ser un número positivo.");
+                    } else if (entrada[i].equals("-n")) {
+                        cuantos = n;
+                    } else if (entrada[i].equals("-s")) {
+                        semilla = n;
+                    } else if (entrada[i].equals("-k")) {
+                        capacidadCache = (long) n << 20;
+                    } else {
+                        hilos = n;
+                    }
+                    if (valor != null)
+                        i++;
+                    break;
+                case "-i":
+                case "-o":
+                    esValido &= false;
+                    System.err.println("La bandera '" + entrada[i] + "' no se usa en un lote.");
+                    break;
+                default:
+                    if (entrada[i].equals("-g"))
+                        generar = true;
+                    banderas.add(entrada[i]);
+            }
+        }
+        if (generar == (cuantos == 0)) {
+            esValido &= false;
+            System.err.println("Usa '-g' con '-n' para generar, o '-l' sin '-g' para resolver.");
+        } else if (generar && (long) semilla + cuantos - 1 > Integer.MAX_VALUE) {
+            esValido &= false;
+            System.err.println("Las semillas del lote no caben en un entero.");
+        } else if (!generar && rutas.isEmpty()) {
+            esValido &= false;
+            System.err.println("Asegúrate de incluir al menos una ruta con '-l'.");
+        } else if (generar && (directorioCache != null || capacidadCache >= 0)) {
+            esValido &= false;
+            System.err.println("El cache de trayectorias solo se usa al resolver.");
+        }
+        // las banderas de cada trabajo se revisan una vez, antes de empezar
+        if (esValido)
+            esValido = generar ? new GenerarMaze().getValues(argumentos("-s", "1"))
+                               : new ResolverMaze().getValues(argumentos());
+        if (!esValido)
+            printUsage();
+        return esValido;
+    }
+
+    /* Regresa las banderas de un trabajo con las banderas extra dadas. */
+    private String[] argumentos(String... extra) {
+        List<String> a = new ArrayList<>(banderas);
+        Collections.addAll(a, extra);
+        return a.toArray(new String[a.size()]);
+    }
+
+    /**
+    * Metodo que procesa todos los laberintos del lote y escribe el resumen en
+    * la salida estandar
+    */
+    public void procesa() throws IOException {
+        if (directorioCache != null || capacidadCache >= 0)
+            cache = new CacheSoluciones(capacidadCache >= 0 ? capacidadCache : CacheSoluciones.CAPACIDAD_DEFAULT,
+                                        directorioCache);
+        List<Callable<String>> trabajos = new ArrayList<>();
+        // el archivo de cada trabajo, para el resumen si el trabajo truena
+        List<Path> nombres = new ArrayList<>();
+        if (generar) {
+            Files.createDirectories(directorio);
+            for (int i = 0; i < cuantos; i++) {
+                trabajos.add(generacion(semilla + i));
+                nombres.add(salidaGenerada(semilla + i));
+            }
+        } else {
+            for (Path ruta : rutas)
+                for (Path archivo : archivos(ruta)) {
+                    trabajos.add(solucion(archivo));
+                    nombres.add(archivo);
+                }
+        }
+
+        long inicio = System.nanoTime();
+        ExecutorService grupo = Executors.newFixedThreadPool(hilos);
+        int errores = 0;
+        try {
+            List<Future<String>> resultados = new ArrayList<>();
+            for (Callable<String> trabajo : trabajos)
+                resultados.add(grupo.submit(trabajo));
+            for (int i = 0; i < resultados.size(); i++) {
+                String linea;
+                try {
+                    linea = resultados.get(i).get();
+                } catch (ExecutionException e) {
+                    // los trabajos atrapan sus excepciones, aqui solo llegan
+                    // errores de la maquina virtual; el tiempo es desde el
+                    // inicio del lote
+                    linea = nombres.get(i) + "\t" + milisegundos(inicio) + "\terror: " + e.getCause();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                if (!linea.endsWith("\tok"))
+                    errores++;
+                System.out.println(linea);
+            }
+        } finally {
+            grupo.shutdownNow();
+        }
+        System.out.println("total\t" + milisegundos(inicio) + "\t" + trabajos.size()
+                           + " laberintos, " + errores + " errores");
+        if (cache != null)
+            System.out.println("cache\t" + cache.toJson());
+        System.out.flush();
+    }
+
+    /* Los archivos mze de la ruta, ordenados por nombre si es un directorio. */
+    private static List<Path> archivos(Path ruta) throws IOException {
+        List<Path> archivos = new ArrayList<>();
+        if (!Files.isDirectory(ruta)) {
+            archivos.add(ruta);
+            return archivos;
+        }
+        try (DirectoryStream<Path> contenido = Files.newDirectoryStream(ruta, "*.mze")) {
+            for (Path archivo : contenido)
+                archivos.add(archivo);
+        }
+        Collections.sort(archivos);
+        return archivos;
+    }
+
+    /* Trabajo que genera el laberinto con la semilla dada. */
+    private Callable<String> generacion(int s) {
+        Path salida = salidaGenerada(s);
+        return () -> {
+            long inicio = System.nanoTime();
+            GenerarMaze generador = new GenerarMaze();
+            if (!generador.getValues(argumentos("-s", String.valueOf(s), "-o", salida.toString())))
+                return salida + "\t" + milisegundos(inicio) + "\terror: banderas invalidas";
+            try {
+                generador.generarMze();
+            } catch (RuntimeException e) {
+                return salida + "\t" + milisegundos(inicio) + "\terror: " + e.getMessage();
+            }
+            return salida + "\t" + milisegundos(inicio) + "\tok";
+        };
+    }
+
+    /* El archivo donde se escribe el laberinto con la semilla dada. */
+    private Path salidaGenerada(int s) {
+        return directorio.resolve("maze_" + s + ".mze");
+    }
+
+    /* Trabajo que resuelve el laberinto del archivo y escribe la solucion
+     * junto a él. */
+    private Callable<String> solucion(Path archivo) {
+        return () -> {
+            long inicio = System.nanoTime();
+            ResolverMaze resolvedor = new ResolverMaze();
+            resolvedor.getValues(argumentos());
+            resolvedor.setCache(cache);
+            String nombre = archivo.getFileName().toString();
+            if (nombre.endsWith(".mze"))
+                nombre = nombre.substring(0, nombre.length() - 4);
+            Path salida = archivo.resolveSibling(nombre + "." + resolvedor.getFormato());
+            try {
+                resolvedor.leerMze(archivo);
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(salida), 1 << 16)) {
+                    resolvedor.resolverMaze(out);
+                }
+            } catch (InvalidMazeException | IOException | RuntimeException e) {
+                return archivo + "\t" + milisegundos(inicio) + "\terror: " + e.getMessage();
+            }
+            return archivo + "\t" + milisegundos(inicio) + "\tok";
+        };
+    }
+
+    /* Milisegundos desde el instante dado de System.nanoTime. */
+    private static long milisegundos(long inicio) {
+        return (System.nanoTime() - inicio) / 1000000;
+    }
+}
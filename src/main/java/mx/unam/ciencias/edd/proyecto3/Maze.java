@@ -1,6 +1,10 @@
 package mx.unam.ciencias.edd.proyecto3;
 
 import mx.unam.ciencias.edd.*;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Random;
 
 /** 
@@ -9,41 +13,42 @@ import java.util.Random;
 public class Maze {
 
     /**
-     * Clase interna para la representación de cada cuarto
+     * Clase interna para los vertices de las graficas de cuartos. Solo
+     * guarda su indice; las paredes y el puntaje estan en {@link MazeCompacto}
+     * y los cuartos solo se crean al construir una grafica.
     */
     private class Room {
-        private int wallAndScore; 
+        /* Indice del cuarto en el laberinto: y*columnas+x. */
+        private int indice;
 
-        private Room(int wallsAndScore) {
-            this.wallAndScore = wallsAndScore;
-        }
-
-        private int getAll(){
-            return wallAndScore;
+        private Room(int indice) {
+            this.indice = indice;
         }
 
         private int getScore() {
-            return (wallAndScore & 0xF0) >> 4;
-        }
-
-        private byte getWall() {
-            return (byte) (wallAndScore & 0x0F);
-        }
-
-        private void setWall(int wall) {
-            wallAndScore = (wallAndScore & 0xF0) | (wall & 0x0F);
+            return cuartos.getPuntaje(indice);
         }
     }
 
     private int renglones, columnas;
-    private Room[][] maze;
+    /* Paredes y puntajes de todos los cuartos. */
+    private MazeCompacto cuartos;
+    /* Vertices de la ultima grafica construida, por indice. */
+    private Room[] vertices;
     private Random random; 
 
     private int s1, s2, f1, f2; 
-    private boolean hayRuta = false;
-    private static final int ESTE = 1, NORTE = 2, OESTE = 4, SUR = 8;
+    static final int ESTE = 1, NORTE = 2, OESTE = 4, SUR = 8;
 
     Grafica<Room> graficaMaze = new Grafica<>();
+    /* Numero de cuartos que expandio la ultima busqueda. */
+    private int expandidos;
+    /* Numero de veces que la ultima busqueda reordeno el monticulo. */
+    private int reordenamientos;
+    /* Numero de problemas del laberinto que reporto la ultima busqueda. */
+    private int advertencias;
+    /* Donde se miden las etapas de la resolucion. */
+    private Estadisticas estadisticas = Estadisticas.INACTIVAS;
 
     /**
     * Constructor para generar  un laberinto valido
@@ -52,20 +57,24 @@ public class Maze {
         this.columnas = columnas;
         this.renglones = renglones;
         this.random = random;
-        this.maze = new Room[columnas][renglones];
+        this.cuartos = new MazeCompacto(columnas, renglones);
     }
 
     /**
     * Constructor para resolver  un laberinto dado
     */
     public Maze(byte[] mazeByte, int columnas, int renglones) {
+        this(ByteBuffer.wrap(mazeByte), columnas, renglones);
+    }
+
+    /**
+    * Constructor para resolver  un laberinto dado en un buffer de bytes,
+    * desde el indice 0 del buffer
+    */
+    public Maze(ByteBuffer mazeByte, int columnas, int renglones) {
         this.columnas = columnas;
         this.renglones = renglones;
-        this.maze = new Room[columnas][renglones];
-        int i = 0;
-        for (int y = 0; y < renglones; y++) 
-            for (int x = 0; x < columnas; x++) 
-                maze[x][y] = new Room(mazeByte[i++]);    
+        this.cuartos = new MazeCompacto(mazeByte, columnas, renglones);
     }
 
 
@@ -73,18 +82,56 @@ public class Maze {
     * Metodo que inicializa un laberinto con puntajes aleatorios y un recorrido valido
     */
     public void iniciarMaze() {
+        iniciarMaze(FabricaGeneradores.generador(AlgoritmoMaze.CAMINO));
+    }
+
+    /**
+    * Metodo que inicializa un laberinto con puntajes aleatorios, su entrada y
+    * salida, y abre las paredes con el generador recibido
+    */
+    public void iniciarMaze(GeneradorMaze generador) {
         allWallrandomScore();
         setEntradaySalida();
         demolerParedEntradaSalida();
-        boolean[][] visitados = new boolean[columnas][renglones];
-        conectaEntradaySalida(s1, f1, visitados);
+        generador.genera(this, random);
     }
 
     /**
-    * Metodo que agrega un cuarto al laberinto con su puntaje y paredes corresondientes
+    * Regresa el numero de columnas del laberinto
     */
-    private void agregarRoom(int x, int y, int score, int walls){
-        maze[x][y] = new Room(score << 4 | walls);
+    public int getColumnas() {
+        return columnas;
+    }
+
+    /**
+    * Regresa el numero de renglones del laberinto
+    */
+    public int getRenglones() {
+        return renglones;
+    }
+
+    /**
+    * Metodo que abre la pared en la direccion dada del cuarto (x, y) y la
+    * pared opuesta de su vecino; el vecino debe estar dentro del laberinto
+    */
+    void abrePared(int x, int y, int direccion) {
+        demolerPared(x, y, direccion);
+        switch (direccion) {
+            case ESTE:
+                demolerPared(x + 1, y, OESTE);
+                break;
+            case NORTE:
+                demolerPared(x, y - 1, SUR);
+                break;
+            case OESTE:
+                demolerPared(x - 1, y, ESTE);
+                break;
+            case SUR:
+                demolerPared(x, y + 1, NORTE);
+                break;
+            default:
+                throw new IllegalArgumentException("¿Que direccion es esa?.");
+        }
     }
 
     /**
@@ -93,8 +140,8 @@ public class Maze {
     private void allWallrandomScore() {
         for (int x = 0; x < columnas; x++) {
             for (int y = 0; y < renglones; y++) {
-                int score = random.nextInt(16);
-                agregarRoom(x, y, score, 0x0F);
+                // las paredes ya estan cerradas
+                cuartos.setScore(x, y, random.nextInt(16));
             }   
         }
     }
@@ -103,12 +150,23 @@ public class Maze {
     * Metodo que modifica la entrada y salida del laberinto por crearse
     */
     private void setEntradaySalida() {
+        int[] io = eligeEntradaySalida(columnas, renglones, random);
+        s1 = io[0]; f1 = io[1]; s2 = io[2]; f2 = io[3];
+    }
+
+    /**
+    * Metodo que elige dos cuartos distintos del borde para la entrada y la
+    * salida; regresa {s1, f1, s2, f2}
+    */
+    static int[] eligeEntradaySalida(int columnas, int renglones, Random random) {
+        int s1, f1, s2, f2;
         s1 = random.nextInt(columnas);
         f1 = (s1 == columnas - 1 || s1 == 0) ? random.nextInt(renglones) : (random.nextBoolean() ? 0 : renglones - 1);
         do {
             s2 = random.nextInt(columnas);
             f2 = (s2 == columnas - 1 || s2 == 0) ? random.nextInt(renglones) : (random.nextBoolean() ? 0 : renglones - 1);
         } while (s1 == s2 && f1 == f2);
+        return new int[] {s1, f1, s2, f2};
     }
 
     /**
@@ -116,53 +174,81 @@ public class Maze {
     */
     private void demolerParedEntradaSalida() {
         // Derribar pared en la entrada
-        if (s1 == 0) {
-            demolerPared(s1, f1, OESTE); 
-        } else if (s1 == columnas - 1) {
-            demolerPared(s1, f1, ESTE); 
-        } else if (f1 == 0) {
-            demolerPared(s1, f1, NORTE);
-        } else if (f1 == renglones - 1) {
-            demolerPared(s1, f1, SUR);
-        }
-
+        demolerPared(s1, f1, paredExterior(s1, f1, columnas, renglones));
         // Derribar pared en la salida
-        if (s2 == 0) {
-            demolerPared(s2, f2, OESTE);
-        } else if (s2 == columnas - 1) {
-            demolerPared(s2, f2, ESTE); 
-        } else if (f2 == 0) {
-            demolerPared(s2, f2, NORTE); 
-        } else if (f2 == renglones - 1) {
-            demolerPared(s2, f2, SUR); 
-        }
+        demolerPared(s2, f2, paredExterior(s2, f2, columnas, renglones));
     }
 
     /**
-    * Metodo que conecta la entrada con  la salida
+    * Metodo que regresa la pared exterior que se derriba para poner una
+    * puerta en el cuarto (x, y) del borde, o 0 si no esta en el borde
     */
-    private void conectaEntradaySalida(int x, int y, boolean[][] visitados) {
-        if (x == s2 && y == f2) {
-            hayRuta = true;
-            return;
+    static int paredExterior(int x, int y, int columnas, int renglones) {
+        if (x == 0) {
+            return OESTE;
+        } else if (x == columnas - 1) {
+            return ESTE;
+        } else if (y == 0) {
+            return NORTE;
+        } else if (y == renglones - 1) {
+            return SUR;
         }
+        return 0;
+    }
 
-        visitados[x][y] = true;
-        int[] direcciones = {ESTE, NORTE, OESTE, SUR};
-        barajar(direcciones);
-
-        for (int direccion : direcciones) {
-            int nx = x, ny = y;
-            if (direccion == ESTE) nx++;
-            else if (direccion == NORTE) ny--;
-            else if (direccion == OESTE) nx--;
-            else if (direccion == SUR) ny++;
-
-            if (nx >= 0 && nx < columnas && ny >= 0 && ny < renglones && !visitados[nx][ny]) {
-                demolerPared(x, y, direccion);
-                demolerPared(nx, ny, getDireccionOpuesta(direccion));
-                conectaEntradaySalida(nx, ny, visitados);
-                if (hayRuta) return;
+    /**
+    * Metodo que conecta la entrada con  la salida. Es un DFS con pila
+    * explicita de enteros (cuarto y estado de cada nivel), para que la
+    * profundidad no dependa de la pila del hilo; consume el Random en el
+    * mismo orden que la version recursiva, asi que una semilla produce el
+    * mismo laberinto.
+    */
+    void conectaEntradaySalida() {
+        int destino = f2 * columnas + s2;
+        boolean[] visitados = new boolean[columnas * renglones];
+        // cuarto de cada nivel y su estado: las 4 direcciones barajadas en
+        // los 16 bits bajos y la siguiente por intentar en los altos
+        int[] cuartos = new int[64];
+        int[] estados = new int[64];
+        int[] direcciones = new int[4];
+        int tope = 0;
+        int actual = f1 * columnas + s1;
+
+        while (actual != -1) {
+            if (actual == destino)
+                return;
+            visitados[actual] = true;
+            if (tope == cuartos.length) {
+                cuartos = Arrays.copyOf(cuartos, tope * 2);
+                estados = Arrays.copyOf(estados, tope * 2);
+            }
+            direcciones[0] = ESTE; direcciones[1] = NORTE; direcciones[2] = OESTE; direcciones[3] = SUR;
+            barajar(direcciones);
+            cuartos[tope] = actual;
+            estados[tope++] = direcciones[0] | direcciones[1] << 4 | direcciones[2] << 8 | direcciones[3] << 12;
+
+            actual = -1;
+            while (actual == -1 && tope > 0) {
+                int estado = estados[tope - 1];
+                int k = estado >>> 16;
+                if (k == 4) {
+                    tope--;
+                    continue;
+                }
+                estados[tope - 1] = estado + (1 << 16);
+                int direccion = (estado >> (4 * k)) & 0x0F;
+                int x = cuartos[tope - 1] % columnas, y = cuartos[tope - 1] / columnas;
+                int nx = x, ny = y;
+                if (direccion == ESTE) nx++;
+                else if (direccion == NORTE) ny--;
+                else if (direccion == OESTE) nx--;
+                else if (direccion == SUR) ny++;
+
+                if (nx >= 0 && nx < columnas && ny >= 0 && ny < renglones && !visitados[ny * columnas + nx]) {
+                    demolerPared(x, y, direccion);
+                    demolerPared(nx, ny, getDireccionOpuesta(direccion));
+                    actual = ny * columnas + nx;
+                }
             }
         }
     }
@@ -181,12 +267,11 @@ public class Maze {
     }
 
     /**
-    * Metodo que abre paredes entre dos cuartos
+    * Metodo que abre paredes entre dos cuartos; la pared que comparten es una
+    * sola, así que queda abierta para los dos
     */
     private void demolerPared(int x, int y, int direccion) {
-        int mask = ~direccion;
-        int actual = maze[x][y].getWall();
-        maze[x][y].setWall(actual & mask);
+        cuartos.abrePared(x, y, direccion);
     }
 
     /**
@@ -211,217 +296,310 @@ public class Maze {
     * Metodo que genera un arreglo de bytes, util para imprimir el laberinto linealmente
     */
     public byte[] getMazeByte(){
-        byte[] mze = new byte[columnas * renglones];
-        int i = 0;
-        for (int y = 0; y < renglones; y++) 
-            for (int x = 0; x < columnas; x++) 
-                mze[i++] = (byte) maze[x][y].wallAndScore;
-            
-        return mze;
+        return cuartos.getMazeByte();
+    }
+
+    /**
+    * Regresa las paredes y los puntajes empacados del laberinto
+    */
+    MazeCompacto getCompacto() {
+        return cuartos;
+    }
+
+    /* Crea un cuarto por indice para los vertices de una grafica. */
+    private Room[] creaCuartos() {
+        vertices = new Room[columnas * renglones];
+        for (int i = 0; i < vertices.length; i++)
+            vertices[i] = new Room(i);
+        return vertices;
+    }
+
+    private Room cuarto(int x, int y) {
+        return vertices[y * columnas + x];
     }
 
     private void crearVertices(){
+        creaCuartos();
         for (int x = 0; x < columnas; x++) {
             for (int y = 0; y < renglones; y++) {
-                graficaMaze.agrega(maze[x][y]);
+                graficaMaze.agrega(cuarto(x, y));
             }
         }
     }
 
+    /* Las inconsistencias se encuentran al empacar los cuartos; aqui solo se
+     * reportan, en el orden de los cuartos. */
     private boolean verificarConsistencia(){
-        boolean check = true;
-        for(int y=0; y<renglones; y++){
-            for(int x=0;x<columnas; x++){
-                Room cuarto = maze[x][y];
-
-                if((cuarto.getWall()&ESTE)==0)
-                    if(x+1 < columnas && ((maze[x+1][y].getWall()&OESTE)!=0)){
-                        check&=false;
-                        System.err.println("Laberinto invalido: se encontro incosistencia  (ESTE/OESTE) entre  cuarto[" + x + "][" + y + "] y "  + " cuarto[" + (x+1) + "][" + y + "]");
-                    }
-                
-                // si no tiene pared NORTE
-                if((cuarto.getWall()&NORTE)==0)
-                    if(y-1 >= 0 && ((maze[x][y-1].getWall()&SUR)!=0)){
-                        check&=false;
-                        System.err.println("Laberinto invalido: se encontro incosistencia (NORTE/SUR)  entre  cuarto[" + x + "][" + y + "] y "  + " cuarto[" + x + "][" + (y-1) + "]");
-                    }
-
-                // si no tiene pared OESTE
-                if((cuarto.getWall()&OESTE)==0)
-                    if(x-1 >= 0 && ((maze[x-1][y].getWall()&ESTE)!=0)){
-                        check&=false;
-                        System.err.println("Laberinto invalido: se encontro incosistencia (OESTE/ESTE) entre  cuarto[" + x + "][" + y + "] y "  + " cuarto[" + (x-1) + "][" + y + "]");
-                    }
-
-                // si no tiene pared SUR
-                if((cuarto.getWall()&SUR)==0)
-                    if(y+1 < renglones && ((maze[x][y+1].getWall()&NORTE)!=0)){
-                        check&=false;
-                        System.err.println("Laberinto invalido: se encontro incosistencia (NORTE/SUR) entre  cuarto[" + x + "][" + y + "] y "  + " cuarto[" + x + "][" + (y+1) + "]");
-                    }
-            }
+        for (long codigo : cuartos.inconsistencias()) {
+            int i = (int) (codigo >> 2);
+            System.err.println(inconsistencia(i % columnas, i / columnas, (int) (codigo & 3)));
+        }
+        return cuartos.getInconsistencias() == 0;
+    }
+
+    /* El mensaje de la pared abierta del cuarto (x, y) que su vecino tiene
+     * cerrada; orden es 0, 1, 2 o 3 para ESTE, NORTE, OESTE o SUR. */
+    static String inconsistencia(int x, int y, int orden) {
+        switch (orden) {
+            case 0:
+                return "Laberinto invalido: se encontro incosistencia  (ESTE/OESTE) entre  cuarto[" + x + "][" + y + "] y "  + " cuarto[" + (x+1) + "][" + y + "]";
+            case 1:
+                return "Laberinto invalido: se encontro incosistencia (NORTE/SUR)  entre  cuarto[" + x + "][" + y + "] y "  + " cuarto[" + x + "][" + (y-1) + "]";
+            case 2:
+                return "Laberinto invalido: se encontro incosistencia (OESTE/ESTE) entre  cuarto[" + x + "][" + y + "] y "  + " cuarto[" + (x-1) + "][" + y + "]";
+            default:
+                return "Laberinto invalido: se encontro incosistencia (NORTE/SUR) entre  cuarto[" + x + "][" + y + "] y "  + " cuarto[" + x + "][" + (y+1) + "]";
         }
-        return check;
     }
 
     private void crearAristas(){
             for(int y=0;y<renglones;y++){
                 for(int x=0; x<columnas; x++){
                     
-                    Room cuarto = maze[x][y];
+                    Room cuarto = cuarto(x, y);
+                    int pared = cuartos.getWall(x, y);
                     // si no tiene pared ESTE
-                    if((cuarto.getWall()&ESTE)==0)
-                        if((x+1 < columnas) && (!graficaMaze.sonVecinos(cuarto,maze[x+1][y])))
-                            graficaMaze.conecta(cuarto,maze[x+1][y], 1+cuarto.getScore()+cuarto.getScore() );
+                    if((pared&ESTE)==0)
+                        if((x+1 < columnas) && (!graficaMaze.sonVecinos(cuarto,cuarto(x+1, y))))
+                            graficaMaze.conecta(cuarto,cuarto(x+1, y), 1+cuarto.getScore()+cuarto.getScore() );
                     
                     // si no tiene pared NORTE
-                    if((cuarto.getWall()&NORTE)==0)
-                        if((y-1 >= 0) && (!graficaMaze.sonVecinos(cuarto,maze[x][y-1])))
-                            graficaMaze.conecta(cuarto,maze[x][y-1], 1+cuarto.getScore()+cuarto.getScore() );
+                    if((pared&NORTE)==0)
+                        if((y-1 >= 0) && (!graficaMaze.sonVecinos(cuarto,cuarto(x, y-1))))
+                            graficaMaze.conecta(cuarto,cuarto(x, y-1), 1+cuarto.getScore()+cuarto.getScore() );
                             
                     // si no tiene pared OESTE
-                    if((cuarto.getWall()&OESTE)==0)
-                        if((x-1 >= 0) && (!graficaMaze.sonVecinos(cuarto,maze[x-1][y])))
-                            graficaMaze.conecta(cuarto,maze[x-1][y], 1+cuarto.getScore()+cuarto.getScore() );
+                    if((pared&OESTE)==0)
+                        if((x-1 >= 0) && (!graficaMaze.sonVecinos(cuarto,cuarto(x-1, y))))
+                            graficaMaze.conecta(cuarto,cuarto(x-1, y), 1+cuarto.getScore()+cuarto.getScore() );
 
                     // si no tiene pared SUR
-                    if((cuarto.getWall()&SUR)==0)
-                        if((y+1 < renglones) && (!graficaMaze.sonVecinos(cuarto,maze[x][y+1])))
-                            graficaMaze.conecta(cuarto,maze[x][y+1], 1+cuarto.getScore()+cuarto.getScore() );  
+                    if((pared&SUR)==0)
+                        if((y+1 < renglones) && (!graficaMaze.sonVecinos(cuarto,cuarto(x, y+1))))
+                            graficaMaze.conecta(cuarto,cuarto(x, y+1), 1+cuarto.getScore()+cuarto.getScore() );  
                 }
             }
     }
 
     private void asignarIo(){
-        //invalidamos los indices de la entrada y salida
-        s1 = -1; f1 = -1; s2 = -1; f2 = -1;
-
-            for(int y=0; y<renglones; y++){
-                for(int x=0; x<columnas; x++){
-                    Room cuarto = maze[x][y];
-                    // ENCONTRAR COORDENADAS DEL INICIO Y DEL DESTINO
-                    if((y==0) && ((cuarto.getWall()&NORTE)==0)){
-                        if (s1 == -1) {
-                            s1 = x; f1 = y;
-                        } else if (s2 == -1) {
-                            s2 = x; f2 = y;
-                        } else {
-                            System.err.println("Laberinto inválido: más de una entrada o salida encontrada al Norte.");
-                        }
-                    }else if((x==0) && ((cuarto.getWall()&OESTE)==0)){
-                        if (s1 == -1) {
-                            s1 = x; f1 = y;
-                        } else if (s2 == -1) {
-                            s2 = x; f2 = y;
-                        } else {
-                            System.err.println("Laberinto inválido: más de una entrada o salida encontrada al Oeste.");
-                        }
-                    }else if((y==renglones-1) && ((cuarto.getWall()&SUR)==0)){
-                        if (s1 == -1) {
-                            s1 = x; f1 = y;
-                        } else if (s2 == -1) {
-                            s2 = x; f2 = y;
-                        } else {
-                            System.err.println("Laberinto inválido: más de una entrada o salida encontrada al Sur.");
-                        }
-                    }else if((x==columnas-1) && ((cuarto.getWall()&ESTE)==0)){
-                        if (s1 == -1) {
-                            s1 = x; f1 = y;
-                        } else if (s2 == -1) {
-                            s2 = x; f2 = y;
-                        } else {
-                            System.err.println("Laberinto inválido: más de una entrada o salida encontrada al Este.");
-                        }
-                    }  
-                }
-            }
+        int[] io = cuartos.entradaySalida();
+        s1 = io[0]; f1 = io[1]; s2 = io[2]; f2 = io[3];
+        advertencias += io[4];
     }
 
     // Metodo que convierte maze a guna rafica ponderada
-    private void mazeTografica(){
+    void mazeTografica(){
         graficaMaze.limpia();
         asignarIo();
         if (s1 == -1 || s2 == -1) {
+            advertencias++;
             System.err.println("No hay entrada ni salida.");
         }else{
+            estadisticas.inicia(EtapaResolucion.GRAFICA);
             crearVertices();
-            if(verificarConsistencia()){
+            estadisticas.termina(EtapaResolucion.GRAFICA);
+            estadisticas.inicia(EtapaResolucion.CONSISTENCIA);
+            boolean consistente = verificarConsistencia();
+            estadisticas.termina(EtapaResolucion.CONSISTENCIA);
+            if(consistente){
+                estadisticas.inicia(EtapaResolucion.GRAFICA);
                 crearAristas();
+                estadisticas.termina(EtapaResolucion.GRAFICA);
             }else{
+                advertencias += cuartos.getInconsistencias() + 1;
                 System.err.println("Ahorita solo funciona con laberintos con dimensiones iguales.");
             }
         }
     }
 
-    // Metodo que usa dijkstra para devolver la ruta de peso minimo
-    private Lista<VerticeGrafica<Room>> mazeDijkstra() throws InvalidMazeException {
-        mazeTografica();
-        Lista<VerticeGrafica<Room>> lista = new Lista<>();
-        if(graficaMaze.esVacia()){
-            System.err.println("Laberinto invalido: No se pudo recorrer la grafica ya que no se contruyo un laberinto valido.");  
-        } else{
-            Room inicio = maze[s1][f1], fin = maze[s2][f2];
-            lista= graficaMaze.dijkstra(inicio, fin);        
-        }  
-        return lista;
+    /**
+    * Metodo que usa dijkstra sobre la grafica de cuartos para devolver la ruta
+    * de peso minimo como indices de cuartos (y*columnas+x), empezando en la
+    * entrada; regresa un arreglo vacio si no hay solucion
+    */
+    public int[] mazeDijkstra() {
+        return mazeBusqueda(AlgoritmoBusqueda.DIJKSTRA);
     }
 
     /**
-    * Metodo que genera el SVG del laberinto
+    * Metodo que regresa la misma ruta de peso minimo que {@link #mazeDijkstra}
+    * buscando con A* sobre la grafica de cuartos; la heuristica es la
+    * distancia Manhattan a la salida multiplicada por el peso minimo de un
+    * cuarto, que nunca sobreestima
     */
-    private String graficarMaze() {
-        StringBuilder svg = new StringBuilder();
-        svg.append("<svg viewBox=\"0 0 " + (columnas * 10) + " " + (renglones * 10) + "\">");
-        for (int x = 0; x < columnas; x++) {
-            for (int y = 0; y < renglones; y++) {
-                byte wall = maze[x][y].getWall();
-                if ((wall & NORTE) != 0) svg.append("<line x1=\"" + x * 10 + "\" y1=\"" + y * 10 + "\" x2=\"" + (x + 1) * 10 + "\" y2=\"" + y * 10 + "\" stroke=\"black\"/>");
-                if ((wall & ESTE) != 0) svg.append("<line x1=\"" + (x + 1) * 10 + "\" y1=\"" + y * 10 + "\" x2=\"" + (x + 1) * 10 + "\" y2=\"" + (y + 1) * 10 + "\" stroke=\"black\"/>");
-                if ((wall & SUR) != 0) svg.append("<line x1=\"" + x * 10 + "\" y1=\"" + (y + 1) * 10 + "\" x2=\"" + (x + 1) * 10 + "\" y2=\"" + (y + 1) * 10 + "\" stroke=\"black\"/>");
-                if ((wall & OESTE) != 0) svg.append("<line x1=\"" + x * 10 + "\" y1=\"" + y * 10 + "\" x2=\"" + x * 10 + "\" y2=\"" + (y + 1) * 10 + "\" stroke=\"black\"/>");
-            }
-        }
-        svg.append("<circle cx=\"" + (s1 * 10 + 5) + "\" cy=\"" + (f1 * 10 + 5) + "\" r=\"3\" fill=\"green\"/>");
-        svg.append("<circle cx=\"" + (s2 * 10 + 5) + "\" cy=\"" + (f2 * 10 + 5) + "\" r=\"3\" fill=\"red\"/>");
-        svg.append("</svg>");
-        return svg.toString();
+    public int[] mazeAEstrella() {
+        return mazeBusqueda(AlgoritmoBusqueda.AESTRELLA);
+    }
+
+    /**
+    * Metodo que regresa la misma ruta de peso minimo que {@link #mazeDijkstra}
+    * con dijkstra bidireccional entre la entrada y la salida
+    */
+    public int[] mazeBidireccional() {
+        return mazeBusqueda(AlgoritmoBusqueda.BIDIRECCIONAL);
     }
 
     /**
-    * Metodo que genera el SVG del camino encontrado por Dijkstra
+    * Metodo que regresa la misma ruta de peso minimo que {@link #mazeDijkstra}
+    * con dijkstra sobre una {@link GraficaCompacta} de cuartos, construida
+    * directamente de los cuartos sin pasar por la {@link Grafica}
     */
-    public String graficarSolucion()  throws InvalidMazeException{
-        Lista<VerticeGrafica<Room>> path = mazeDijkstra();
-        if(path.esVacia()){
-            return "No hay solucion";
+    public int[] mazeCompacta() {
+        advertencias = 0;
+        asignarIo();
+        if (s1 == -1 || s2 == -1) {
+            advertencias++;
+            System.err.println("No hay entrada ni salida.");
+            return new int[0];
+        }
+        estadisticas.inicia(EtapaResolucion.CONSISTENCIA);
+        boolean consistente = verificarConsistencia();
+        estadisticas.termina(EtapaResolucion.CONSISTENCIA);
+        if (!consistente) {
+            advertencias += cuartos.getInconsistencias() + 1;
+            System.err.println("Laberinto invalido: No se pudo recorrer la grafica ya que no se contruyo un laberinto valido.");
+            return new int[0];
         }
+        estadisticas.inicia(EtapaResolucion.GRAFICA);
+        GraficaCompacta<Room> compacta = mazeToCompacta();
+        estadisticas.termina(EtapaResolucion.GRAFICA);
+        estadisticas.inicia(EtapaResolucion.BUSQUEDA);
+        int[] trayectoria = compacta.dijkstraPorIndice(f1 * columnas + s1, f2 * columnas + s2);
+        estadisticas.termina(EtapaResolucion.BUSQUEDA);
+        expandidos = compacta.getExpandidos();
+        reordenamientos = compacta.getReordenamientos();
+        return trayectoria;
+    }
 
-        StringBuilder svg = new StringBuilder(graficarMaze());
-        StringBuilder polylinePoints = new StringBuilder();
-        for (VerticeGrafica<Room> vertice : path) {
-            Room room = vertice.get();
-            int x = -1, y = -1;
-
-            outer: for (int i = 0; i < columnas; i++) {
-                for (int j = 0; j < renglones; j++) {
-                    if (maze[i][j] == room) {
-                        x = i;
-                        y = j;
-                        break outer;
-                    }
-                }
+    /* Construye la grafica compacta de cuartos: el vertice i es el cuarto con
+     * indice i, y cada arista pesa lo mismo que en crearAristas, 1+2*score
+     * del cuarto de menor indice. */
+    private GraficaCompacta<Room> mazeToCompacta() {
+        int n = columnas * renglones;
+        int[] desplazamientos = new int[n + 1];
+        for (int y = 0; y < renglones; y++)
+            for (int x = 0; x < columnas; x++) {
+                int i = y * columnas + x;
+                desplazamientos[i + 1] = desplazamientos[i] + grado(x, y);
             }
+        int[] vecinos = new int[desplazamientos[n]];
+        double[] pesos = new double[desplazamientos[n]];
+        int k = 0;
+        for (int y = 0; y < renglones; y++)
+            for (int x = 0; x < columnas; x++) {
+                int pared = cuartos.getWall(x, y);
+                int i = y * columnas + x;
+                if ((pared & ESTE) == 0 && x + 1 < columnas)
+                    k = agregaVecino(vecinos, pesos, k, i, i + 1);
+                if ((pared & NORTE) == 0 && y - 1 >= 0)
+                    k = agregaVecino(vecinos, pesos, k, i, i - columnas);
+                if ((pared & OESTE) == 0 && x - 1 >= 0)
+                    k = agregaVecino(vecinos, pesos, k, i, i - 1);
+                if ((pared & SUR) == 0 && y + 1 < renglones)
+                    k = agregaVecino(vecinos, pesos, k, i, i + columnas);
+            }
+        return new GraficaCompacta<>(creaCuartos(), desplazamientos, vecinos, pesos);
+    }
+
+    /* Numero de vecinos del cuarto (x, y) dentro del laberinto. */
+    private int grado(int x, int y) {
+        int pared = cuartos.getWall(x, y);
+        int grado = 0;
+        if ((pared & ESTE) == 0 && x + 1 < columnas) grado++;
+        if ((pared & NORTE) == 0 && y - 1 >= 0) grado++;
+        if ((pared & OESTE) == 0 && x - 1 >= 0) grado++;
+        if ((pared & SUR) == 0 && y + 1 < renglones) grado++;
+        return grado;
+    }
+
+    private int agregaVecino(int[] vecinos, double[] pesos, int k, int cuarto, int vecino) {
+        int puntaje = cuartos.getPuntaje(Math.min(cuarto, vecino));
+        vecinos[k] = vecino;
+        pesos[k] = 1 + puntaje + puntaje;
+        return k + 1;
+    }
+
+    /**
+    * Regresa el numero de cuartos que expandio la ultima busqueda
+    */
+    public int getExpandidos() {
+        return expandidos;
+    }
+
+    /**
+    * Regresa el numero de veces que la ultima busqueda reordeno un cuarto que
+    * ya estaba en el monticulo
+    */
+    public int getReordenamientos() {
+        return reordenamientos;
+    }
+
+    /**
+    * Regresa el numero de problemas del laberinto (puertas de mas,
+    * inconsistencias, falta de entrada o salida) que la ultima busqueda
+    * reporto en la salida de errores
+    */
+    public int getAdvertencias() {
+        return advertencias;
+    }
+
+    /**
+    * Metodo que define donde se miden las etapas de las busquedas
+    */
+    public void setEstadisticas(Estadisticas estadisticas) {
+        this.estadisticas = estadisticas;
+    }
 
-            if (x != -1 && y != -1) {
-                polylinePoints.append(x * 10 + 5).append(",").append(y * 10 + 5).append(" ");
+    /**
+    * Metodo que regresa la ruta de peso minimo sobre la grafica de cuartos
+    * buscando con el algoritmo dado
+    */
+    public int[] mazeBusqueda(AlgoritmoBusqueda busqueda) {
+        advertencias = 0;
+        mazeTografica();
+        Lista<VerticeGrafica<Room>> lista = new Lista<>();
+        if(graficaMaze.esVacia()){
+            System.err.println("Laberinto invalido: No se pudo recorrer la grafica ya que no se contruyo un laberinto valido.");  
+        } else{
+            Room inicio = cuarto(s1, f1), fin = cuarto(s2, f2);
+            estadisticas.inicia(EtapaResolucion.BUSQUEDA);
+            if (busqueda == AlgoritmoBusqueda.AESTRELLA) {
+                int minimo = 0x0F;
+                for (Room cuarto : vertices)
+                    minimo = Math.min(minimo, cuarto.getScore());
+                int escala = 1 + 2 * minimo;
+                lista = graficaMaze.aEstrella(inicio, fin, cuarto ->
+                    escala * (Math.abs(cuarto.indice % columnas - s2) + Math.abs(cuarto.indice / columnas - f2)));
+            } else if (busqueda == AlgoritmoBusqueda.BIDIRECCIONAL) {
+                lista = graficaMaze.dijkstraBidireccional(inicio, fin);
             } else {
-                System.err.println("Error: Room not found in maze array.");
+                lista= graficaMaze.dijkstra(inicio, fin);        
             }
-        }
-        svg.insert(svg.indexOf("</svg>"), "<polyline points=\"" + polylinePoints.toString() + "\" stroke=\"black\" fill=\"none\"/>");
-        System.err.println("Se creo la solucion del laberinto con exito.");
-        return svg.toString();
+            estadisticas.termina(EtapaResolucion.BUSQUEDA);
+            expandidos = graficaMaze.getExpandidos();
+            reordenamientos = graficaMaze.getReordenamientos();
+        }  
+        int[] trayectoria = new int[lista.getLongitud()];
+        int i = 0;
+        for (VerticeGrafica<Room> vertice : lista)
+            trayectoria[i++] = vertice.get().indice;
+        return trayectoria;
+    }
+
+    /**
+    * Metodo que escribe el SVG del camino encontrado por Dijkstra
+    */
+    public void graficarSolucion(OutputStream out) throws IOException {
+        graficarSolucion(mazeDijkstra(), out);
+    }
+
+    /**
+    * Metodo que escribe el SVG de una trayectoria dada como indices de cuartos
+    * (y*columnas+x), como la que regresan {@link GridSolver#resolver} y
+    * {@link #mazeDijkstra}.
+    */
+    public void graficarSolucion(int[] trayectoria, OutputStream out) throws IOException {
+        cuartos.graficarSolucion(trayectoria, out);
     }
 
 }
@@ -0,0 +1,325 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Clase para las paredes y los puntajes de un laberinto empacados en bits.
+ * Cada pared que comparten dos cuartos se guarda una sola vez: de cada cuarto
+ * solo se guardan su pared ESTE y su pared SUR en dos arreglos de long, y el
+ * NORTE del primer renglon y el OESTE de la primera columna van en dos
+ * arreglos aparte. Los puntajes van de dos en dos en cada byte.
+ *
+ * Así un cuarto ocupa 6 bits en lugar de un objeto: un laberinto de
+ * 10000x10000 ocupa unos 75 MB.
+ *
+ * Al leer un laberinto de bytes, una pared que solo uno de los dos cuartos
+ * tiene se guarda cerrada, igual que como se dibuja, y se recuerda como
+ * inconsistencia.
+ */
+public class MazeCompacto {
+
+    private int columnas, renglones;
+    /* Bit i: pared ESTE del cuarto i, y*columnas+x. */
+    private long[] este;
+    /* Bit i: pared SUR del cuarto i. */
+    private long[] sur;
+    /* Bit x: pared NORTE del cuarto (x, 0). */
+    private long[] norte;
+    /* Bit y: pared OESTE del cuarto (0, y). */
+    private long[] oeste;
+    /* Puntaje del cuarto i en el nibble i&1 del byte i/2. */
+    private byte[] puntajes;
+
+    /* Inconsistencias como 4*cuarto+orden, donde orden es 0, 1, 2 o 3 para
+     * la pared ESTE, NORTE, OESTE o SUR que el cuarto tiene abierta y su
+     * vecino no. */
+    private long[] inconsistencias = new long[0];
+    private int numInconsistencias;
+
+    /**
+    * Constructor para un laberinto con todas las paredes cerradas y todos
+    * los puntajes en cero
+    */
+    public MazeCompacto(int columnas, int renglones) {
+        if (columnas < 1 || renglones < 1)
+            throw new IllegalArgumentException("El laberinto debe tener al menos un cuarto.");
+        this.columnas = columnas;
+        this.renglones = renglones;
+        int n = columnas * renglones;
+        este = bits(n);
+        sur = bits(n);
+        norte = bits(columnas);
+        oeste = bits(renglones);
+        puntajes = new byte[(n + 1) / 2];
+    }
+
+    /**
+    * Constructor para el laberinto de los bytes dados, en el formato de
+    * {@link Maze#getMazeByte}, desde el indice 0 del buffer
+    */
+    public MazeCompacto(ByteBuffer cuartos, int columnas, int renglones) {
+        this(columnas, renglones);
+        int i = 0;
+        for (int y = 0; y < renglones; y++)
+            for (int x = 0; x < columnas; x++, i++) {
+                int cuarto = cuartos.get(i);
+                setPuntaje(i, (cuarto >> 4) & 0x0F);
+                if (y == 0 && (cuarto & Maze.NORTE) == 0)
+                    abre(norte, x);
+                if (x == 0 && (cuarto & Maze.OESTE) == 0)
+                    abre(oeste, y);
+                boolean abierta = (cuarto & Maze.ESTE) == 0;
+                if (x + 1 < columnas && abierta != ((cuartos.get(i + 1) & Maze.OESTE) == 0))
+                    inconsistencia(abierta ? 4L * i : 4L * (i + 1) + 2);
+                else if (abierta)
+                    abre(este, i);
+                abierta = (cuarto & Maze.SUR) == 0;
+                if (y + 1 < renglones && abierta != ((cuartos.get(i + columnas) & Maze.NORTE) == 0))
+                    inconsistencia(abierta ? 4L * i + 3 : 4L * (i + columnas) + 1);
+                else if (abierta)
+                    abre(sur, i);
+            }
+    }
+
+    private static long[] bits(int n) {
+        long[] bits = new long[(n + 63) >>> 6];
+        Arrays.fill(bits, -1L);
+        return bits;
+    }
+
+    private static boolean tiene(long[] bits, int i) {
+        return (bits[i >>> 6] & 1L << i) != 0;
+    }
+
+    private static void abre(long[] bits, int i) {
+        bits[i >>> 6] &= ~(1L << i);
+    }
+
+    private void inconsistencia(long codigo) {
+        if (numInconsistencias == inconsistencias.length)
+            inconsistencias = Arrays.copyOf(inconsistencias, Math.max(16, 2 * numInconsistencias));
+        inconsistencias[numInconsistencias++] = codigo;
+    }
+
+    /**
+    * Regresa el numero de columnas del laberinto
+    */
+    public int getColumnas() {
+        return columnas;
+    }
+
+    /**
+    * Regresa el numero de renglones del laberinto
+    */
+    public int getRenglones() {
+        return renglones;
+    }
+
+    /**
+    * Regresa las paredes del cuarto (x, y) como los 4 bits bajos de su byte
+    */
+    public byte getWall(int x, int y) {
+        int i = y * columnas + x;
+        int pared = 0;
+        if (tiene(este, i)) pared |= Maze.ESTE;
+        if (y > 0 ? tiene(sur, i - columnas) : tiene(norte, x)) pared |= Maze.NORTE;
+        if (x > 0 ? tiene(este, i - 1) : tiene(oeste, y)) pared |= Maze.OESTE;
+        if (tiene(sur, i)) pared |= Maze.SUR;
+        return (byte) pared;
+    }
+
+    /**
+    * Regresa el puntaje del cuarto (x, y), entre 0 y 15
+    */
+    public int getScore(int x, int y) {
+        return getPuntaje(y * columnas + x);
+    }
+
+    /**
+    * Metodo que cambia el puntaje del cuarto (x, y); solo se usan sus 4 bits
+    * bajos
+    */
+    public void setScore(int x, int y, int puntaje) {
+        setPuntaje(y * columnas + x, puntaje);
+    }
+
+    /* Puntaje del cuarto con indice i. */
+    int getPuntaje(int i) {
+        return (puntajes[i >>> 1] >> ((i & 1) << 2)) & 0x0F;
+    }
+
+    private void setPuntaje(int i, int puntaje) {
+        int corrimiento = (i & 1) << 2;
+        puntajes[i >>> 1] = (byte) (puntajes[i >>> 1] & ~(0x0F << corrimiento)
+                                    | (puntaje & 0x0F) << corrimiento);
+    }
+
+    /**
+    * Metodo que abre la pared en la direccion dada del cuarto (x, y); como la
+    * pared es una sola, tambien queda abierta para el vecino
+    */
+    public void abrePared(int x, int y, int direccion) {
+        int i = y * columnas + x;
+        switch (direccion) {
+            case Maze.ESTE:
+                abre(este, i);
+                break;
+            case Maze.NORTE:
+                if (y > 0) abre(sur, i - columnas); else abre(norte, x);
+                break;
+            case Maze.OESTE:
+                if (x > 0) abre(este, i - 1); else abre(oeste, y);
+                break;
+            case Maze.SUR:
+                abre(sur, i);
+                break;
+            default:
+                throw new IllegalArgumentException("¿Que direccion es esa?.");
+        }
+    }
+
+    /**
+    * Metodo que genera un arreglo de bytes, en el mismo formato que
+    * {@link Maze#getMazeByte}
+    */
+    public byte[] getMazeByte() {
+        byte[] mze = new byte[columnas * renglones];
+        int i = 0;
+        for (int y = 0; y < renglones; y++)
+            for (int x = 0; x < columnas; x++, i++)
+                mze[i] = (byte) (getPuntaje(i) << 4 | getWall(x, y));
+        return mze;
+    }
+
+    /**
+    * Regresa el numero de paredes que solo uno de sus dos cuartos tenia en
+    * los bytes leidos
+    */
+    public int getInconsistencias() {
+        return numInconsistencias;
+    }
+
+    /* Las inconsistencias ordenadas por cuarto y luego ESTE, NORTE, OESTE,
+     * SUR, como 4*cuarto+orden. */
+    long[] inconsistencias() {
+        long[] ordenadas = Arrays.copyOf(inconsistencias, numInconsistencias);
+        Arrays.sort(ordenadas);
+        return ordenadas;
+    }
+
+    /**
+    * Metodo que busca en el borde los cuartos con la pared exterior abierta
+    * y regresa {s1, f1, s2, f2, extra} con la entrada y la salida, o -1 en
+    * las que no encontro, y el numero de puertas de mas; reporta cada puerta
+    * de mas en la salida de errores
+    */
+    public int[] entradaySalida() {
+        return entradaySalida(true);
+    }
+
+    /* Como entradaySalida(), pero sin reportar las puertas de mas si reporta
+     * es falso: al dibujar ya las reporto la busqueda. */
+    private int[] entradaySalida(boolean reporta) {
+        int[] io = {-1, -1, -1, -1, 0};
+        for (int y = 0; y < renglones; y++) {
+            // solo los cuartos del borde pueden tener la pared exterior abierta
+            int paso = y == 0 || y == renglones - 1 ? 1 : Math.max(columnas - 1, 1);
+            for (int x = 0; x < columnas; x += paso) {
+                int pared = getWall(x, y);
+                String lado;
+                if (y == 0 && (pared & Maze.NORTE) == 0)
+                    lado = "Norte";
+                else if (x == 0 && (pared & Maze.OESTE) == 0)
+                    lado = "Oeste";
+                else if (y == renglones - 1 && (pared & Maze.SUR) == 0)
+                    lado = "Sur";
+                else if (x == columnas - 1 && (pared & Maze.ESTE) == 0)
+                    lado = "Este";
+                else
+                    continue;
+                if (io[0] == -1) {
+                    io[0] = x; io[1] = y;
+                } else if (io[2] == -1) {
+                    io[2] = x; io[3] = y;
+                } else {
+                    io[4]++;
+                    if (reporta)
+                        System.err.println("Laberinto inválido: más de una entrada o salida encontrada al " + lado + ".");
+                }
+            }
+        }
+        return io;
+    }
+
+    /* Si hay pared en la linea horizontal y entre las columnas x y x+1: el
+     * NORTE del cuarto (x, y) o el SUR del cuarto (x, y-1). */
+    private boolean paredHorizontal(int x, int y) {
+        return y == 0 ? tiene(norte, x) : tiene(sur, (y - 1) * columnas + x);
+    }
+
+    /* Si hay pared en la linea vertical x entre los renglones y y y+1: el
+     * OESTE del cuarto (x, y) o el ESTE del cuarto (x-1, y). */
+    private boolean paredVertical(int x, int y) {
+        return x == 0 ? tiene(oeste, y) : tiene(este, y * columnas + x - 1);
+    }
+
+    /**
+    * Metodo que escribe el SVG del laberinto, sin cerrar el elemento svg.
+    * Todas las paredes van en un solo path: cada corrida maxima de paredes
+    * sobre una misma linea horizontal o vertical es un solo segmento
+    */
+    private void graficarMaze(EscritorSvg svg, int[] io) throws IOException {
+        svg.texto("<svg viewBox=\"0 0 ").numero(columnas * 10).texto(" ").numero(renglones * 10).texto("\">");
+        svg.texto("<path stroke=\"black\" fill=\"none\" d=\"");
+        for (int y = 0; y <= renglones; y++) {
+            int inicio = -1;
+            for (int x = 0; x <= columnas; x++) {
+                boolean pared = x < columnas && paredHorizontal(x, y);
+                if (pared && inicio == -1) {
+                    inicio = x;
+                } else if (!pared && inicio != -1) {
+                    svg.horizontal(inicio * 10, y * 10, x * 10);
+                    inicio = -1;
+                }
+            }
+        }
+        for (int x = 0; x <= columnas; x++) {
+            int inicio = -1;
+            for (int y = 0; y <= renglones; y++) {
+                boolean pared = y < renglones && paredVertical(x, y);
+                if (pared && inicio == -1) {
+                    inicio = y;
+                } else if (!pared && inicio != -1) {
+                    svg.vertical(x * 10, inicio * 10, y * 10);
+                    inicio = -1;
+                }
+            }
+        }
+        svg.texto("\"/>");
+        svg.circulo(io[0] * 10 + 5, io[1] * 10 + 5, 3, "green");
+        svg.circulo(io[2] * 10 + 5, io[3] * 10 + 5, 3, "red");
+    }
+
+    /**
+    * Metodo que escribe el SVG de una trayectoria dada como indices de cuartos
+    * (y*columnas+x), como la que regresan {@link GridSolver#resolver} y
+    * {@link Maze#mazeDijkstra}.
+    */
+    public void graficarSolucion(int[] trayectoria, OutputStream out) throws IOException {
+        EscritorSvg svg = new EscritorSvg(out);
+        if (trayectoria.length == 0) {
+            svg.texto("No hay solucion\n").termina();
+            return;
+        }
+        graficarMaze(svg, entradaySalida(false));
+        svg.texto("<polyline points=\"");
+        for (int i : trayectoria) {
+            svg.punto(i % columnas * 10 + 5, i / columnas * 10 + 5);
+        }
+        svg.texto("\" stroke=\"black\" fill=\"none\"/></svg>\n").termina();
+        System.err.println("Se creo la solucion del laberinto con exito.");
+    }
+}
@@ -1,6 +1,6 @@
 package mx.unam.ciencias.edd.proyecto3;
 
-import java.io.BufferedInputStream;
+import java.io.IOException;
 
 /**
  * Clase para genrar y resolver laberintos
@@ -9,12 +9,45 @@ import java.io.BufferedInputStream;
 
 public class Proyecto3 {
     public static void main(String[] args)throws InvalidMazeException{
-        if (args.length == 0) {
-            BufferedInputStream in = new BufferedInputStream(System.in);
-            ResolverMaze.leerMze(in);
-            ResolverMaze.resolverMaze();
+        if (ServidorMaze.esServidor(args)) {
+            ServidorMaze servidor = new ServidorMaze();
+            if (!servidor.getValues(args)) return;
+            try {
+                servidor.atiende();
+            } catch (IOException e) {
+                System.err.println("Error en el servidor: " + e.getMessage());
+            }
+            return;
+        }
+
+        if (Lote.esLote(args)) {
+            Lote lote = new Lote();
+            if (!lote.getValues(args)) return;
+            try {
+                lote.procesa();
+            } catch (IOException e) {
+                System.err.println("Error al procesar el lote: " + e.getMessage());
+            }
+            return;
+        }
+
+        boolean generar = false;
+        for (String b : args)
+            if (b.equals("-g")) generar = true;
+
+        if (!generar) {
+            ResolverMaze resolvedor = new ResolverMaze();
+            if (!resolvedor.getValues(args)) return;
+            try {
+                resolvedor.leerMze(System.in);
+            } catch (InvalidMazeException e) {
+                System.err.println(e.getMessage());
+                return;
+            }
+            resolvedor.resolverMaze();
         }else{
-            if(GenerarMaze.getValues(args))GenerarMaze.generarMze();
+            GenerarMaze generador = new GenerarMaze();
+            if(generador.getValues(args))generador.generarMze();
         }
     }
 
@@ -0,0 +1,101 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+import mx.unam.ciencias.edd.ConjuntosDisjuntos;
+import java.util.Random;
+
+/**
+ * Clase con el estado del algoritmo de Eller para un renglon: a que conjunto
+ * pertenece cada cuarto y que paredes ESTE y SUR se abren. Sólo guarda un
+ * renglon, así que la memoria es O(columnas) sin importar los renglones.
+ */
+public class RenglonEller {
+
+    private int columnas;
+    /* Conjunto de cada cuarto del renglon; -1 si no tiene. */
+    private int[] conjunto;
+    /* Renumeracion de conjuntos al empezar un renglon. */
+    private int[] mapa;
+    /* Cuartos de cada conjunto que faltan por decidir si bajan. */
+    private int[] cuenta;
+    /* Si algun cuarto de cada conjunto ya bajo. */
+    private boolean[] bajo;
+    private boolean[] este, sur;
+    private ConjuntosDisjuntos conjuntos;
+
+    /**
+    * Constructor para renglones con las columnas dadas
+    */
+    public RenglonEller(int columnas) {
+        this.columnas = columnas;
+        conjunto = new int[columnas];
+        mapa = new int[columnas];
+        cuenta = new int[columnas];
+        bajo = new boolean[columnas];
+        este = new boolean[columnas];
+        sur = new boolean[columnas];
+        conjuntos = new ConjuntosDisjuntos(columnas);
+        for (int x = 0; x < columnas; x++)
+            conjunto[x] = -1;
+    }
+
+    /**
+    * Metodo que decide las paredes del siguiente renglon. En el ultimo
+    * renglon se unen todos los conjuntos y nada baja.
+    */
+    public void genera(Random random, boolean ultimo) {
+        // renumeramos los conjuntos que bajaron y damos uno nuevo a los demas
+        for (int x = 0; x < columnas; x++)
+            mapa[x] = -1;
+        int siguiente = 0;
+        for (int x = 0; x < columnas; x++)
+            if (conjunto[x] != -1) {
+                if (mapa[conjunto[x]] == -1)
+                    mapa[conjunto[x]] = siguiente++;
+                conjunto[x] = mapa[conjunto[x]];
+            }
+        for (int x = 0; x < columnas; x++)
+            if (conjunto[x] == -1)
+                conjunto[x] = siguiente++;
+        conjuntos.limpia();
+
+        for (int x = 0; x + 1 < columnas; x++) {
+            este[x] = !conjuntos.mismoConjunto(conjunto[x], conjunto[x + 1])
+                && (ultimo || random.nextBoolean());
+            if (este[x])
+                conjuntos.une(conjunto[x], conjunto[x + 1]);
+        }
+        este[columnas - 1] = false;
+
+        for (int x = 0; x < columnas; x++) {
+            conjunto[x] = conjuntos.busca(conjunto[x]);
+            cuenta[x] = 0;
+            bajo[x] = false;
+        }
+        for (int x = 0; x < columnas; x++)
+            cuenta[conjunto[x]]++;
+        for (int x = 0; x < columnas; x++) {
+            int c = conjunto[x];
+            cuenta[c]--;
+            sur[x] = !ultimo && (random.nextBoolean() || (cuenta[c] == 0 && !bajo[c]));
+            if (sur[x])
+                bajo[c] = true;
+        }
+        for (int x = 0; x < columnas; x++)
+            if (!sur[x])
+                conjunto[x] = -1;
+    }
+
+    /**
+    * Nos dice si el cuarto x abre su pared ESTE en el ultimo renglon generado
+    */
+    public boolean abreEste(int x) {
+        return este[x];
+    }
+
+    /**
+    * Nos dice si el cuarto x abre su pared SUR en el ultimo renglon generado
+    */
+    public boolean abreSur(int x) {
+        return sur[x];
+    }
+}
@@ -3,72 +3,378 @@ package mx.unam.ciencias.edd.proyecto3;
 import mx.unam.ciencias.edd.*;
 import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 
 
+/**
+ * Clase para resolver un laberinto. Cada instancia guarda las banderas y el
+ * laberinto de un solo trabajo, así que varias instancias pueden resolver
+ * laberintos distintos a la vez.
+ */
 public class ResolverMaze {
 
-    private static int columnas;
-    private static int renglones;
-    private static byte min = (byte)0x02;
-    private static byte max = (byte)0xFF;
-    // Arreglo que contiene el laberinto en bytes
-    private static byte[] mazeByte;
+    private int columnas;
+    private int renglones;
+    // Buffer que contiene el laberinto en bytes; si se leyo de un archivo
+    // es una vista del archivo mapeado en memoria
+    private ByteBuffer mazeByte;
+    /**Archivo mze a leer; null para la entrada estandar*/
+    private String archivo;
+    /**Bandera para resolver con la grafica de cuartos (modo de referencia)*/
+    private boolean grafica = false;
+    /**Bandera para resolver con la grafica compacta de cuartos*/
+    private boolean compacta = false;
+    /**Algoritmo de busqueda*/
+    private AlgoritmoBusqueda busqueda = AlgoritmoBusqueda.DIJKSTRA;
+    /**Bandera para dibujar la solucion como PNG en lugar de SVG*/
+    private boolean png = false;
+    /**Tamaño de cada cuarto en pixeles para el PNG*/
+    private int tamaño = GraficadorPng.TAMAÑO_DEFAULT;
+    /**Estadisticas de las etapas; inactivas si no se dio '--stats'*/
+    private Estadisticas estadisticas = Estadisticas.INACTIVAS;
+    /**Cache de trayectorias; null si no se usa*/
+    private CacheSoluciones cache;
+    /* Problemas del laberinto que reporto la ultima busqueda. */
+    private int advertencias;
+
+    /**Imprime el uso correcto del programa*/
+    private static void printUsage() {
+        System.err.println("\nPara resolver un laberinto puedes incluir la siguiente bandera:");
+        System.err.println(" '-m rejilla' (por omision) resuelve directamente sobre los bytes del laberinto.");
+        System.err.println(" '-m grafica' resuelve construyendo la grafica de cuartos (modo de referencia).");
+        System.err.println(" '-m compacta' resuelve con dijkstra sobre la grafica compacta de cuartos.");
+        System.err.println(" '-b dijkstra' (por omision), '-b aestrella' o '-b bidireccional' elige el algoritmo de busqueda.");
+        System.err.println(" '-i archivo' lee el laberinto del archivo (mapeado en memoria) en lugar de la entrada estandar.");
+        System.err.println(" '-f svg' (por omision) o '-f png' elige el formato de la solucion.");
+        System.err.println(" '-t pixeles' tamaño de cada cuarto en el PNG, entre " + GraficadorPng.TAMAÑO_MINIMO
+            + " y " + GraficadorPng.TAMAÑO_MAXIMO + " (por omision " + GraficadorPng.TAMAÑO_DEFAULT + ").");
+        System.err.println(" '-c directorio' guarda las trayectorias en el directorio y las reutiliza si el");
+        System.err.println("      mismo laberinto se resuelve otra vez con el mismo modo y busqueda.");
+        System.err.println(" '--stats' imprime en la salida de errores una linea JSON con el tiempo, la memoria");
+        System.err.println("      asignada y los contadores de cada etapa.\n");
+    }
+
+    /**Metodo para obtener las banderas del resolvedor*/
+    public boolean getValues(String[] entrada) {
+        boolean esValido = true;
+        for (int i = 0; i < entrada.length; i++) {
+            switch (entrada[i]) {
+                case "-m":
+                    if (i + 1 < entrada.length && !entrada[i + 1].startsWith("-")) {
+                        if (entrada[i + 1].equals("grafica")) {
+                            grafica = true;
+                            compacta = false;
+                        } else if (entrada[i + 1].equals("compacta")) {
+                            grafica = false;
+                            compacta = true;
+                        } else if (entrada[i + 1].equals("rejilla")) {
+                            grafica = false;
+                            compacta = false;
+                        } else {
+                            esValido &= false;
+                            System.err.println("El modo debe ser 'rejilla', 'grafica' o 'compacta'.");
+                        }
+                        i++;
+                    } else {
+                        esValido &= false;
+                        System.err.println("Asegúrate de incluir un valor para el modo.");
+                    }
+                    break;
+                case "-b":
+                    if (i + 1 < entrada.length && !entrada[i + 1].startsWith("-")) {
+                        try {
+                            busqueda = AlgoritmoBusqueda.valueOf(entrada[i + 1].toUpperCase());
+                        } catch (IllegalArgumentException e) {
+                            esValido &= false;
+                            System.err.println("La busqueda debe ser 'dijkstra', 'aestrella' o 'bidireccional'.");
+                        }
+                        i++;
+                    } else {
+                        esValido &= false;
+                        System.err.println("Asegúrate de incluir un valor para la busqueda.");
+                    }
+                    break;
+                case "-i":
+                    if (i + 1 < entrada.length && !entrada[i + 1].startsWith("-")) {
+                        archivo = entrada[i + 1];
+                        i++;
+                    } else {
+                        esValido &= false;
+                        System.err.println("Asegúrate de incluir un archivo de entrada.");
+                    }
+                    break;
+                case "-f":
+                    if (i + 1 < entrada.length && !entrada[i + 1].startsWith("-")) {
+                        if (entrada[i + 1].equals("png")) {
+                            png = true;
+                        } else if (entrada[i + 1].equals("svg")) {
+                            png = false;
+                        } else {
+                            esValido &= false;
+                            System.err.println("El formato debe ser 'svg' o 'png'.");
+                        }
+                        i++;
+                    } else {
+                        esValido &= false;
+                        System.err.println("Asegúrate de incluir un valor para el formato.");
+                    }
+                    break;
+                case "-t":
+                    if (i + 1 < entrada.length) {
+                        try {
+                            tamaño = Integer.parseInt(entrada[i + 1]);
+                            if (tamaño < GraficadorPng.TAMAÑO_MINIMO || tamaño > GraficadorPng.TAMAÑO_MAXIMO) {
+                                esValido &= false;
+                                System.err.println("El tamaño de cuarto debe estar entre " + GraficadorPng.TAMAÑO_MINIMO
+                                    + " y " + GraficadorPng.TAMAÑO_MAXIMO + ".");
+                            }
+                        } catch (NumberFormatException e) {
+                            esValido &= false;
+                            System.err.println("El tamaño de cuarto debe ser un número entero.");
+                        }
+                        i++;
+                    } else {
+                        esValido &= false;
+                        System.err.println("Asegúrate de incluir un valor para el tamaño de cuarto.");
+                    }
+                    break;
+                case "-c":
+                    if (i + 1 < entrada.length && !entrada[i + 1].startsWith("-")) {
+                        try {
+                            // una sola resolucion solo aprovecha el nivel en disco
+                            cache = new CacheSoluciones(0, Paths.get(entrada[i + 1]));
+                        } catch (IOException | InvalidPathException e) {
+                            esValido &= false;
+                            System.err.println("No se pudo usar el directorio del cache: " + e.getMessage());
+                        }
+                        i++;
+                    } else {
+                        esValido &= false;
+                        System.err.println("Asegúrate de incluir un directorio para el cache.");
+                    }
+                    break;
+                case "--stats":
+                    setEstadisticas(true);
+                    break;
+                default:
+                    esValido &= false;
+                    System.err.println("Bandera desconocida: " + entrada[i]);
+            }
+        }
+        if (compacta && busqueda != AlgoritmoBusqueda.DIJKSTRA) {
+            esValido &= false;
+            System.err.println("El modo 'compacta' solo admite la busqueda 'dijkstra'.");
+        }
+        if (!esValido)
+            printUsage();
+        return esValido;
+    }
 
     /** 
      * Metodo para leer archivo mze y revisar que la estructura 
-     * del archivo sea valida e inicializamos el mazeByte 
+     * del archivo sea valida e inicializamos el mazeByte.
+     * Acepta el encabezado de legado y el de la version 2, ver {@link EncabezadoMze}.
     */
-    public static void leerMze(BufferedInputStream input){
+    public void leerMze(BufferedInputStream input) throws InvalidMazeException{
         try{
-            int i= 0;
+            estadisticas.inicia(EtapaResolucion.LECTURA);
+            EncabezadoMze encabezado = EncabezadoMze.lee(input);
+            columnas = encabezado.getColumnas();
+            renglones = encabezado.getRenglones();
+            byte[] cuartos = new byte[encabezado.getCuartos()];
             int j = 0;
-            int b;
-            while((b = input.read()) !=-1){
-                if(i>5){
-                    mazeByte[j]=(byte)b;
-                    j++;
-                }else if(i>3 && i<6){
-                    if(i==4) renglones = b;
-                    if(i==5){
-                        columnas = b;
-                        mazeByte = new byte[columnas*renglones];
-                    }  
-                }else{
-                    switch(b){
-                        case 0x4d:
-                            if(i!=0)
-                                System.err.println("El primer byte debe ser 0x4d");
-                            break;
-                        case 0x41:
-                            if(i!=1)
-                                System.err.println("El segundo byte debe ser 0x41");
-                            break;
-                        case 0x5a:
-                            if(i!=2)
-                                System.err.println("El tercer byte debe ser 0x5a");
-                            break;
-                        case 0x45:
-                            if(i!=3)
-                                System.err.println("El cuarto byte debe ser 0x45");
-                            break;
-                    } 
-                }
-                i++;
-            }
-            if(mazeByte.length != (columnas*renglones))
-                System.err.println("Faltan elementos con base a las columnas y renglones proporcionados.");
+            int leidos;
+            while(j < cuartos.length && (leidos = input.read(cuartos, j, cuartos.length - j)) != -1)
+                j += leidos;
+            if(j != cuartos.length)
+                throw new InvalidMazeException("Faltan elementos con base a las columnas y renglones proporcionados.");
+            mazeByte = ByteBuffer.wrap(cuartos);
+            estadisticas.termina(EtapaResolucion.LECTURA);
+            estadisticas.agregaBytes(EtapaResolucion.LECTURA, encabezado.getBytes().length + cuartos.length);
+        } catch (IOException e) {
+            throw new InvalidMazeException("Error al leer el archivo: " + e.getMessage());
+        }
+    }
+
+    /** 
+     * Metodo para leer un archivo mze mapeandolo en memoria. Los cuartos no
+     * se copian: mazeByte queda como una vista del archivo despues del
+     * encabezado. Solo se mapean los cuartos, asi que caben en un mapeo
+     * aunque el archivo completo pase de Integer.MAX_VALUE bytes.
+    */
+    public void leerMze(Path ruta) throws InvalidMazeException{
+        try (FileChannel canal = FileChannel.open(ruta, StandardOpenOption.READ)) {
+            estadisticas.inicia(EtapaResolucion.LECTURA);
+            // el encabezado mas grande es el de la version 2
+            ByteBuffer inicio = ByteBuffer.allocate(15);
+            int leidos = 0;
+            while (inicio.hasRemaining() && leidos != -1)
+                leidos = canal.read(inicio);
+            inicio.flip();
+            EncabezadoMze encabezado = EncabezadoMze.lee(inicio);
+            columnas = encabezado.getColumnas();
+            renglones = encabezado.getRenglones();
+            long desplazamiento = encabezado.getBytes().length;
+            if(canal.size() - desplazamiento < encabezado.getCuartos())
+                throw new InvalidMazeException("Faltan elementos con base a las columnas y renglones proporcionados.");
+            mazeByte = canal.map(FileChannel.MapMode.READ_ONLY, desplazamiento, encabezado.getCuartos());
+            estadisticas.termina(EtapaResolucion.LECTURA);
+            estadisticas.agregaBytes(EtapaResolucion.LECTURA, encabezado.getBytes().length + encabezado.getCuartos());
         } catch (IOException e) {
-            System.err.println("Error al leer el archivo: " + e.getMessage());
+            throw new InvalidMazeException("Error al leer el archivo: " + e.getMessage());
         }
     }
 
     /**
-     * Metodo que resuleve el maze e imprime la solucion en svg
+     * Metodo que lee el laberinto del archivo dado con '-i', o de la entrada
+     * estandar si no se dio
     */
-    public static void resolverMaze() throws InvalidMazeException{ 
+    public void leerMze(InputStream in) throws InvalidMazeException{
+        if (archivo != null)
+            leerMze(Paths.get(archivo));
+        else
+            leerMze(new BufferedInputStream(in, 1 << 16));
+    }
+
+    /**
+     * Metodo que resuleve el maze e imprime la solucion en svg o png
+    */
+    public void resolverMaze() throws InvalidMazeException{ 
+        try {
+            resolverMaze(System.out);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+        } catch (IOException e) {
+            System.err.println("Error al escribir la solucion: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Metodo que resuleve el maze y escribe la solucion en svg o png al flujo
+     * dado. Con estadisticas activas, al final imprime su JSON en la salida
+     * de errores
+    */
+    public void resolverMaze(OutputStream out) throws IOException {
+        // en modo rejilla el svg solo necesita las paredes empacadas y el png
+        // ni eso
+        Maze maze = grafica || compacta ? creaMaze() : null;
+        MazeCompacto cuartos = maze != null ? maze.getCompacto() : png ? null : creaCompacto();
+        int[] trayectoria = resuelve(maze);
+        out = estadisticas.cuenta(out, EtapaResolucion.DIBUJO);
+        estadisticas.inicia(EtapaResolucion.DIBUJO);
+        if (png)
+            new GraficadorPng(mazeByte, columnas, renglones, tamaño).graficar(trayectoria, out);
+        else
+            cuartos.graficarSolucion(trayectoria, out);
+        estadisticas.termina(EtapaResolucion.DIBUJO);
+        if (estadisticas.estanActivas())
+            System.err.println(estadisticas.toJson(grafica ? "grafica" : compacta ? "compacta" : "rejilla",
+                                                   busqueda, getFormato(), columnas, renglones));
+    }
+
+    /**
+     * Metodo que resuelve el maze leido y regresa la trayectoria como indices
+     * de cuartos (y*columnas+x), sin dibujarla; regresa un arreglo vacio si
+     * no hay solucion
+    */
+    public int[] resolverTrayectoria() {
+        return resuelve(grafica || compacta ? creaMaze() : null);
+    }
+
+    /* Construye los cuartos del maze leido. */
+    private Maze creaMaze() {
+        estadisticas.inicia(EtapaResolucion.CUARTOS);
         Maze maze = new Maze(mazeByte, columnas, renglones);
-        System.out.println(maze.graficarSolucion());
-        
+        estadisticas.termina(EtapaResolucion.CUARTOS);
+        maze.setEstadisticas(estadisticas);
+        return maze;
+    }
+
+    /* Empaca las paredes y los puntajes del maze leido. */
+    private MazeCompacto creaCompacto() {
+        estadisticas.inicia(EtapaResolucion.CUARTOS);
+        MazeCompacto cuartos = new MazeCompacto(mazeByte, columnas, renglones);
+        estadisticas.termina(EtapaResolucion.CUARTOS);
+        return cuartos;
+    }
+
+    /**
+     * Metodo que activa o desactiva las estadisticas; al activarlas empiezan
+     * en cero
+    */
+    public void setEstadisticas(boolean activas) {
+        estadisticas = activas ? new Estadisticas(true) : Estadisticas.INACTIVAS;
+    }
+
+    /**
+     * Regresa las estadisticas de la ultima lectura y resolucion
+    */
+    public Estadisticas getEstadisticas() {
+        return estadisticas;
     }
 
+    /**
+     * Metodo que cambia el cache de trayectorias, para compartir uno entre
+     * varios resolvedores; null para no usar cache
+    */
+    public void setCache(CacheSoluciones cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Regresa la extension de los archivos de solucion, "svg" o "png"
+    */
+    public String getFormato() {
+        return png ? "png" : "svg";
+    }
+
+    /* Resuelve el maze con el modo y la busqueda elegidos, o regresa la
+     * trayectoria del cache si ya se resolvio. Solo se guardan las busquedas
+     * que no reportaron problemas del laberinto: con un acierto no se
+     * vuelven a revisar, y sus mensajes se perderian. */
+    private int[] resuelve(Maze maze) {
+        if (cache == null)
+            return busca(maze);
+        String modo = grafica ? "grafica" : compacta ? "compacta" : "rejilla";
+        // el tiempo del cache se cuenta como parte de la busqueda
+        estadisticas.inicia(EtapaResolucion.BUSQUEDA);
+        String llave = CacheSoluciones.llave(mazeByte, columnas, renglones, modo + "/" + busqueda);
+        int[] trayectoria = cache.busca(llave, columnas, renglones);
+        estadisticas.termina(EtapaResolucion.BUSQUEDA);
+        if (trayectoria != null) {
+            estadisticas.setBusqueda(0, 0, trayectoria.length);
+            return trayectoria;
+        }
+        trayectoria = busca(maze);
+        if (advertencias > 0)
+            return trayectoria;
+        estadisticas.inicia(EtapaResolucion.BUSQUEDA);
+        cache.guarda(llave, trayectoria, columnas);
+        estadisticas.termina(EtapaResolucion.BUSQUEDA);
+        return trayectoria;
+    }
+
+    /* Busca la trayectoria con el modo y la busqueda elegidos. */
+    private int[] busca(Maze maze) {
+        int[] trayectoria;
+        if (grafica || compacta) {
+            trayectoria = grafica ? maze.mazeBusqueda(busqueda) : maze.mazeCompacta();
+            advertencias = maze.getAdvertencias();
+            estadisticas.setBusqueda(maze.getExpandidos(), maze.getReordenamientos(), trayectoria.length);
+            return trayectoria;
+        }
+        GridSolver solver = new GridSolver(mazeByte, columnas, renglones);
+        solver.setEstadisticas(estadisticas);
+        trayectoria = solver.resolver(busqueda);
+        advertencias = solver.getAdvertencias();
+        estadisticas.setBusqueda(solver.getExpandidos(), solver.getReordenamientos(), trayectoria.length);
+        return trayectoria;
+    }
 }
@@ -0,0 +1,333 @@
+package mx.unam.ciencias.edd.proyecto3;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Clase para un servidor que resuelve laberintos sin reiniciar la maquina
+ * virtual entre solicitudes. Escucha en un puerto TCP de la interfaz local y
+ * cada conexion puede mandar varias solicitudes, una tras otra.
+ *
+ * Cada solicitud y cada respuesta es un entero de 32 bits big-endian con la
+ * longitud seguido de esa cantidad de bytes. El primer byte de la solicitud
+ * es el comando:
+ * <ul>
+ * <li>'S' seguido de un archivo mze: responde con el SVG o PNG de la
+ *     solucion.</li>
+ * <li>'P' seguido de un archivo mze: responde con la trayectoria, un entero
+ *     de 32 bits por cuarto (y*columnas+x).</li>
+ * <li>'H' sin datos: responde con el histograma de latencias en JSON, con los
+ *     contadores del cache si hay.</li>
+ * </ul>
+ * El primer byte de la respuesta es 'O' si todo salio bien, 'E' si hubo un
+ * error (el resto es el mensaje) o 'B' si ya hay el maximo de solicitudes en
+ * curso; en ese caso la solicitud se descarta y el cliente puede intentar de
+ * nuevo despues.
+ *
+ * Cada conexion tiene su hilo, hasta {@link #CONEXIONES_MAXIMAS}; a las
+ * conexiones de mas se les contesta 'B' y se cierran. Las resoluciones a la
+ * vez estan limitadas por '-j', y el lugar se aparta antes de leer el
+ * laberinto, así que una solicitud rechazada no ocupa memoria. Cada
+ * resolucion usa su propio {@link ResolverMaze} con las banderas con las que
+ * se inicio el servidor. Con '-c' o '-k' todas comparten un
+ * {@link CacheSoluciones}, así que un laberinto repetido no se vuelve a
+ * buscar.
+ */
+public class ServidorMaze {
+
+    /**Longitud maxima de una solicitud en bytes*/
+    public static final int TAMAÑO_MAXIMO = 1 << 26;
+    /**Numero maximo de conexiones atendidas a la vez*/
+    public static final int CONEXIONES_MAXIMAS = 256;
+
+    /* Comandos. */
+    private static final byte RESOLVER = 'S', TRAYECTORIA = 'P', HISTOGRAMA = 'H';
+    /* Estados de la respuesta. */
+    private static final byte BIEN = 'O', ERROR = 'E', OCUPADO = 'B';
+
+    /**Puerto en el que escucha el servidor*/
+    private int puerto = -1;
+    /**Numero maximo de solicitudes en curso*/
+    private int maximo = Runtime.getRuntime().availableProcessors();
+    /**Banderas que se pasan a cada solicitud*/
+    private List<String> banderas = new ArrayList<>();
+    /**Directorio del cache de trayectorias; null para no usar disco*/
+    private Path directorioCache;
+    /**Limite en bytes del cache en memoria; -1 si no se pidio cache*/
+    private long capacidadCache = -1;
+    /**Cache de trayectorias compartido por todas las solicitudes*/
+    private CacheSoluciones cache;
+
+    private Semaphore enCurso;
+    private HistogramaLatencias latencias = new HistogramaLatencias();
+    private AtomicLong ocupados = new AtomicLong();
+    private AtomicLong errores = new AtomicLong();
+
+    /**
+    * Nos dice si los argumentos piden el servidor, con '--servidor'
+    */
+    public static boolean esServidor(String[] entrada) {
+        for (String b : entrada)
+            if (b.equals("--servidor"))
+                return true;
+        return false;
+    }
+
+    /**Imprime el uso correcto del servidor*/
+    private static void printUsage() {
+        System.err.println("\nPara resolver laberintos como servidor:");
+        System.err.println(" '--servidor puerto' escucha en el puerto dado de la interfaz local.");
+        System.err.println(" '-j maximo' numero maximo de solicitudes resolviendose a la vez (por omision el");
+        System.err.println("      numero de procesadores); las demas se rechazan como ocupado.");
+        System.err.println(" '-c directorio' y '-k megabytes' comparten entre las solicitudes un cache de");
+        System.err.println("      trayectorias en disco y en memoria (" + (CacheSoluciones.CAPACIDAD_DEFAULT >> 20)
+            + " MB por omision).");
+        System.err.println(" Las banderas '-m', '-b', '-f' y '-t' aplican a todas las solicitudes.\n");
+    }
+
+    /**Metodo para obtener las banderas del servidor*/
+    public boolean getValues(String[] entrada) {
+        boolean esValido = true;
+        for (int i = 0; i < entrada.length; i++) {
+            String valor = i + 1 < entrada.length && !entrada[i + 1].startsWith("-") ? entrada[i + 1] : null;
+            switch (entrada[i]) {
+                case "--servidor":
+                case "-j":
+                case "-k":
+                    int n = -1;
+                    try {
+                        n = valor == null ? -1 : Integer.parseInt(valor);
+                    } catch (NumberFormatException e) {
+                    }
+                    if (entrada[i].equals("-j") && n > 0) {
+                        maximo = n;
+                    } else if (entrada[i].equals("-k") && n > 0) {
+                        capacidadCache = (long) n << 20;
+                    } else if (entrada[i].equals("--servidor") && n >= 0 && n <= 0xFFFF) {
+                        puerto = n;
+                    } else {
+                        esValido &= false;
+                        System.err.println("Valor invalido para '" + entrada[i] + "'.");
+                    }
+                    if (valor != null)
+                        i++;
+                    break;
+                case "-c":
+                    if (valor == null) {
+                        esValido &= false;
+                        System.err.println("Asegúrate de incluir un directorio para el cache.");
+                        break;
+                    }
+                    directorioCache = Paths.get(valor);
+                    i++;
+                    break;
+                case "-i":
+                case "--stats":
+                    esValido &= false;
+                    System.err.println("La bandera '" + entrada[i] + "' no se usa en el servidor.");
+                    break;
+                default:
+                    banderas.add(entrada[i]);
+            }
+        }
+        if (esValido)
+            esValido = nuevoResolvedor() != null;
+        if (!esValido)
+            printUsage();
+        return esValido;
+    }
+
+    /* Un resolvedor con las banderas del servidor, o null si no son validas. */
+    private ResolverMaze nuevoResolvedor() {
+        ResolverMaze resolvedor = new ResolverMaze();
+        return resolvedor.getValues(banderas.toArray(new String[banderas.size()])) ? resolvedor : null;
+    }
+
+    /**
+    * Metodo que escucha y atiende conexiones hasta que se detenga el proceso
+    */
+    public void atiende() throws IOException {
+        enCurso = new Semaphore(maximo);
+        if (directorioCache != null || capacidadCache >= 0)
+            cache = new CacheSoluciones(capacidadCache >= 0 ? capacidadCache : CacheSoluciones.CAPACIDAD_DEFAULT,
+                                        directorioCache);
+        // sin cola: si no hay hilo libre la conexion se rechaza
+        ExecutorService conexiones = new ThreadPoolExecutor(0, CONEXIONES_MAXIMAS, 60, TimeUnit.SECONDS,
+                                                            new SynchronousQueue<Runnable>());
+        try (ServerSocket servidor = new ServerSocket(puerto, 50, InetAddress.getLoopbackAddress())) {
+            System.err.println("Escuchando en " + servidor.getLocalSocketAddress());
+            while (true) {
+                Socket socket = servidor.accept();
+                try {
+                    conexiones.execute(() -> conversa(socket));
+                } catch (RejectedExecutionException e) {
+                    rechaza(socket);
+                }
+            }
+        } finally {
+            conexiones.shutdownNow();
+        }
+    }
+
+    /* Contesta ocupado a una conexion que no cabe y la cierra. */
+    private void rechaza(Socket conexion) {
+        ocupados.incrementAndGet();
+        try (Socket socket = conexion;
+             DataOutputStream out = new DataOutputStream(socket.getOutputStream())) {
+            responde(out, OCUPADO, mensaje("Hay " + CONEXIONES_MAXIMAS + " conexiones abiertas."));
+        } catch (IOException e) {
+            // el cliente se desconecto
+        }
+    }
+
+    /* Atiende las solicitudes de una conexion hasta que el cliente la
+     * cierre. */
+    private void conversa(Socket conexion) {
+        try (Socket socket = conexion;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16))) {
+            socket.setTcpNoDelay(true);
+            while (true) {
+                int n;
+                try {
+                    n = in.readInt();
+                } catch (EOFException e) {
+                    return;
+                }
+                if (n < 1 || n > TAMAÑO_MAXIMO) {
+                    // no se puede saber donde empieza la siguiente solicitud
+                    responde(out, ERROR, mensaje("Longitud de solicitud invalida: " + n));
+                    return;
+                }
+                procesa(in.readByte(), n - 1, in, out);
+            }
+        } catch (IOException e) {
+            // el cliente se desconecto
+        }
+    }
+
+    /* Procesa una solicitud con el comando y los bytes que le siguen, y
+     * escribe su respuesta. Los datos solo se leen si hay lugar para
+     * resolverla; si no, se descartan. */
+    private void procesa(byte comando, int longitud, DataInputStream in, DataOutputStream out)
+            throws IOException {
+        if (comando == HISTOGRAMA) {
+            descarta(in, longitud);
+            responde(out, BIEN, mensaje(histograma()));
+            return;
+        }
+        if (comando != RESOLVER && comando != TRAYECTORIA) {
+            descarta(in, longitud);
+            errores.incrementAndGet();
+            responde(out, ERROR, mensaje("Comando desconocido: " + (char) comando));
+            return;
+        }
+        if (!enCurso.tryAcquire()) {
+            descarta(in, longitud);
+            ocupados.incrementAndGet();
+            responde(out, OCUPADO, mensaje("Hay " + maximo + " solicitudes en curso."));
+            return;
+        }
+        byte[] respuesta;
+        long inicio;
+        try {
+            byte[] mze = new byte[longitud];
+            in.readFully(mze);
+            inicio = System.nanoTime();
+            respuesta = resuelve(comando, mze);
+        } catch (InvalidMazeException | IllegalArgumentException e) {
+            errores.incrementAndGet();
+            responde(out, ERROR, mensaje(e.getMessage()));
+            return;
+        } catch (RuntimeException | Error e) {
+            // un laberinto no debe tirar el hilo sin contestarle al cliente
+            errores.incrementAndGet();
+            responde(out, ERROR, mensaje(e.toString()));
+            return;
+        } finally {
+            enCurso.release();
+        }
+        latencias.registra(System.nanoTime() - inicio);
+        responde(out, BIEN, respuesta);
+    }
+
+    /* Salta los bytes dados de la conexion sin guardarlos. */
+    private static void descarta(DataInputStream in, int n) throws IOException {
+        while (n > 0) {
+            int saltados = in.skipBytes(n);
+            if (saltados == 0) {
+                // skipBytes no distingue el fin del flujo; readByte si
+                in.readByte();
+                saltados = 1;
+            }
+            n -= saltados;
+        }
+    }
+
+    /* Lee el laberinto de la solicitud y regresa su solucion o su
+     * trayectoria. */
+    private byte[] resuelve(byte comando, byte[] mze) throws InvalidMazeException, IOException {
+        // los cuartos se revisan contra la solicitud antes de que leerMze
+        // reserve lo que dice el encabezado
+        EncabezadoMze encabezado = EncabezadoMze.lee(ByteBuffer.wrap(mze));
+        if (encabezado.getCuartos() > mze.length - encabezado.getBytes().length)
+            throw new InvalidMazeException("Faltan elementos con base a las columnas y renglones proporcionados.");
+        ResolverMaze resolvedor = nuevoResolvedor();
+        resolvedor.setCache(cache);
+        resolvedor.leerMze(new BufferedInputStream(new ByteArrayInputStream(mze), 1 << 16));
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        if (comando == RESOLVER) {
+            resolvedor.resolverMaze(salida);
+        } else {
+            DataOutputStream datos = new DataOutputStream(salida);
+            for (int c : resolvedor.resolverTrayectoria())
+                datos.writeInt(c);
+        }
+        return salida.toByteArray();
+    }
+
+    /* El histograma de latencias con los contadores de rechazos, errores y
+     * del cache. */
+    private String histograma() {
+        String json = latencias.toJson();
+        return "{\"en_curso\":" + (maximo - enCurso.availablePermits())
+            + ",\"ocupados\":" + ocupados.get()
+            + ",\"errores\":" + errores.get()
+            + (cache != null ? ",\"cache\":" + cache.toJson() : "")
+            + ",\"latencias\":" + json + "}";
+    }
+
+    private static byte[] mensaje(String s) {
+        return (s == null ? "" : s).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /* Escribe una respuesta: longitud, estado y datos. */
+    private static void responde(DataOutputStream out, byte estado, byte[] datos) throws IOException {
+        out.writeInt(datos.length + 1);
+        out.writeByte(estado);
+        out.write(datos);
+        out.flush();
+    }
+}